@@ -22,6 +22,7 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
+import frc.robot.util.RateScheduler;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -48,6 +49,9 @@ public class Robot extends TimedRobot {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    // Hand our rate groups out to the subsystems that need them
+    m_robotContainer.registerRates(new RateScheduler(this));
 <<<<<<< HEAD
     Mechanism2d mod = new Mechanism2d(6,6);
     MechanismRoot2d root = mod.getRoot("climber", 3, 3);
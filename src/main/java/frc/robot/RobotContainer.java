@@ -8,21 +8,36 @@ import com.revrobotics.REVPhysicsSim;
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Joystick;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.XboxController;
+import frc.robot.auto.commands.DriveToPose;
 import frc.robot.auto.commands.TrajectoryRunner;
 import frc.robot.auto.manuals.Forward2M;
+import frc.robot.auto.routines.BranchRoutine;
 import frc.robot.auto.routines.TestRoutine;
+import frc.robot.commands.CharacterizeSwerve;
 import frc.robot.commands.SwerveJoystick;
 import frc.robot.commands.SwerveRotator;
 import frc.robot.subsystems.SwerveSubsystem;
 import frc.robot.util.Constants;
+import frc.robot.util.CharacterizationLog;
+import frc.robot.util.CompactTrajectory;
 import frc.robot.util.Constants.AutoConstants;
+import frc.robot.util.Constants.CharacterizationConstants;
 import frc.robot.util.Constants.IOConstants;
+import frc.robot.util.PathLibrary;
+import frc.robot.util.PathWatcher;
+import frc.robot.util.PosePlanner;
+import frc.robot.util.RateScheduler;
+import frc.robot.util.TeleopInput;
+import frc.robot.util.TrajectoryRetimer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 // Ignore unused variable warnings
 @SuppressWarnings("unused")
@@ -36,6 +51,9 @@ public class RobotContainer {
   private final Joystick leftJoystick = new Joystick(IOConstants.kLeftJoystick);
   private final Joystick rightJoystick = new Joystick(IOConstants.kRightJoystick);
 
+  // Samples both joysticks once per cycle for teleop driving
+  private final TeleopInput teleopInput = new TeleopInput(IOConstants.kLeftJoystick, IOConstants.kRightJoystick);
+
   // Create swerve subsystem
   private final SwerveSubsystem swerveSubsystem = new SwerveSubsystem(rightJoystick);
 
@@ -50,25 +68,30 @@ public class RobotContainer {
   // Create a non profiled PID controller for path planner
   private final PIDController ppThetaController = new PIDController(AutoConstants.kPThetaController, 0, 0);
 
+  // Every PathPlanner path the autos use, by name
+  private final PathLibrary pathLibrary = new PathLibrary(AutoConstants.kPathConstraints).loadAll();
+
+  // Plans drive to pose paths around the field on its own thread
+  private final PosePlanner posePlanner = new PosePlanner();
+
   //------------------------------------C-O-N-S-T-R-U-C-T-O-R----------------------------//
 
   public RobotContainer(){
 
-    // Set swerve subsystem default command to swerve joystick with respective joystick inputs
-    // Axies: 0 = left/right : 1 = forward/backwards : 2 = dial
-    swerveSubsystem.setDefaultCommand(new SwerveJoystick(swerveSubsystem,
-    () -> rightJoystick.getRawAxis(0 /* Place axis value here! X-AXIS */),
-    () -> rightJoystick.getRawAxis(1 /* Place axis value here! Y-AXIS */),
-<<<<<<< HEAD
-    //() -> leftJoystick.getRawAxis(0 /* Place axis value here! R-AXIS */),
-    () -> rightJoystick.getRawAxis(2),
-=======
-    () -> leftJoystick.getRawAxis(0 /* Place axis value here! R-AXIS */),
->>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
-    () -> !leftJoystick.getRawButton(Constants.IOConstants.kFieldOrientedButton /* Field oriented? */)));
+    // Set swerve subsystem default command to swerve joystick with the teleop input stage
+    // Axes are set in IOConstants: 0 = left/right : 1 = forward/backwards : 2 = dial
+    swerveSubsystem.setDefaultCommand(new SwerveJoystick(swerveSubsystem, teleopInput));
 
     // Run button binding method
     configureButtonBindings();
+
+    // Put characterization tests on the dashboard
+    configureCharacterization();
+
+    // Pick up path edits without restarting the simulation
+    if(RobotBase.isSimulation()){
+      new PathWatcher(pathLibrary).start();
+    }
 <<<<<<< HEAD
 
     
@@ -84,11 +107,36 @@ public class RobotContainer {
     // Assign button to manually zero heading
     new JoystickButton(rightJoystick,Constants.IOConstants.kZeroHeadingButton).whenPressed(() -> swerveSubsystem.zeroHeading());
 
+    // Drive to the goal pose around field obstacles while held
+    new JoystickButton(leftJoystick, Constants.IOConstants.kDriveToPoseButton).whenHeld(new DriveToPose(swerveSubsystem, posePlanner, () -> AutoConstants.kDriveToPoseGoal, xController, yController, ppThetaController));
+
     // Rotate robot 90* using swerve rotator
     //new JoystickButton(leftJoystick, Constants.IOConstants.kRotatorButton).whenPressed(new SwerveRotator(swerveSubsystem, () -> 0.1, swerveSubsystem.getHeading()));
 
   }
 
+  //------------------------------------C-H-A-R-A-C-T-E-R-I-Z-A-T-I-O-N------------------//
+
+  // One log per mechanism so all four tests get fit together
+  private final CharacterizationLog driveLog = new CharacterizationLog(CharacterizationConstants.kLogCapacity);
+  private final CharacterizationLog turningLog = new CharacterizationLog(CharacterizationConstants.kLogCapacity);
+
+  // Run these from the dashboard with the robot on blocks or on the carpet with room to move
+  private void configureCharacterization(){
+    SmartDashboard.putData("Drive Quasistatic Forward", new CharacterizeSwerve(swerveSubsystem, driveLog, CharacterizeSwerve.Mechanism.DRIVE, false, true));
+    SmartDashboard.putData("Drive Quasistatic Reverse", new CharacterizeSwerve(swerveSubsystem, driveLog, CharacterizeSwerve.Mechanism.DRIVE, false, false));
+    SmartDashboard.putData("Drive Dynamic Forward", new CharacterizeSwerve(swerveSubsystem, driveLog, CharacterizeSwerve.Mechanism.DRIVE, true, true));
+    SmartDashboard.putData("Drive Dynamic Reverse", new CharacterizeSwerve(swerveSubsystem, driveLog, CharacterizeSwerve.Mechanism.DRIVE, true, false));
+    SmartDashboard.putData("Turning Quasistatic Forward", new CharacterizeSwerve(swerveSubsystem, turningLog, CharacterizeSwerve.Mechanism.TURNING, false, true));
+    SmartDashboard.putData("Turning Quasistatic Reverse", new CharacterizeSwerve(swerveSubsystem, turningLog, CharacterizeSwerve.Mechanism.TURNING, false, false));
+    SmartDashboard.putData("Turning Dynamic Forward", new CharacterizeSwerve(swerveSubsystem, turningLog, CharacterizeSwerve.Mechanism.TURNING, true, true));
+    SmartDashboard.putData("Turning Dynamic Reverse", new CharacterizeSwerve(swerveSubsystem, turningLog, CharacterizeSwerve.Mechanism.TURNING, true, false));
+    SmartDashboard.putData("Clear Characterization", new InstantCommand(() -> {
+      driveLog.clear();
+      turningLog.clear();
+    }));
+  }
+
     //------------------------------------R-E-F-E-R-R-E-R-S------------------------------------//
 
     public void containerResetAllEncoders() {
@@ -96,17 +144,49 @@ public class RobotContainer {
       swerveSubsystem.resetAllEncoders();
     }
 
+    // Give every subsystem a chance to set up its rate groups
+    public void registerRates(RateScheduler scheduler) {
+      scheduler.register(swerveSubsystem);
+    }
+
   //------------------------------------A-U-T-O-N-O-M-O-U-S------------------------------------//
   
   // Create a command using TrajectoryRunner and pass in the trajectory to run
   private Command forward2M = new TrajectoryRunner(swerveSubsystem, xController, yController, thetaController, Forward2M.getTrajectory(), Forward2M.getTrajectoryConfig());
+
+  // Same path retimed to the fastest profile the modules can follow, kept compact since only this command holds it
+  private Command forward2MRetimed = new TrajectoryRunner(swerveSubsystem, xController, yController, thetaController, CompactTrajectory.of(TrajectoryRetimer.retime(Forward2M.getTrajectory())), Forward2M.getTrajectoryConfig());
     
   // Load in test routine command for auto selector
-  private Command testRoutine = new TestRoutine(swerveSubsystem, xController, yController, ppThetaController);
+  private Command testRoutine = new TestRoutine(swerveSubsystem, xController, yController, ppThetaController, pathLibrary);
+
+  // Branching routine, takes the target branch if the limelight sees a target at the branch point
+  private Command branchRoutine = buildBranchRoutine();
+
+  // Path library version the routines above were built from
+  private int pathVersion = pathLibrary.getVersion();
+
+  private Command buildBranchRoutine(){
+    return new BranchRoutine(swerveSubsystem, xController, yController, ppThetaController, pathLibrary,
+    () -> NetworkTableInstance.getDefault().getTable("limelight").getEntry("tv").getDouble(0) >= 1 ? "target" : "noTarget");
+  }
+
+  // Rebuild the path routines if any path was reloaded since they were built
+  private void refreshRoutines(){
+    if(pathLibrary.getVersion() == pathVersion){
+      return;
+    }
+    pathVersion = pathLibrary.getVersion();
+    testRoutine = new TestRoutine(swerveSubsystem, xController, yController, ppThetaController, pathLibrary);
+    branchRoutine = buildBranchRoutine();
+    DriverStation.reportWarning("Rebuilt path routines from reloaded paths", false);
+  }
 
   // Returns command to run during auto
   public Command getAutonomousCommand(){
 
+    refreshRoutines();
+
     String autoSelector = "forward2M";
     Command autoCommand = null;
 
@@ -119,6 +199,12 @@ public class RobotContainer {
     else if(autoSelector == "testRoutine"){
       autoCommand = testRoutine;
     }
+    else if(autoSelector == "forward2MRetimed"){
+      autoCommand = forward2MRetimed;
+    }
+    else if(autoSelector == "branchRoutine"){
+      autoCommand = branchRoutine;
+    }
 
     return autoCommand;
   }
@@ -0,0 +1,117 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.auto.commands;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.SelectCommand;
+import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Runs one of several alternative paths, picked by the selector when the branch is reached.
+Every branch's trajectory starts generating in parallel as soon as the routine is built,
+which is while the robot is still disabled. prepare() then wraps each one in a
+TrajectoryWeaver on the main thread, since command groups aren't safe to build off it.
+The routine calls prepare() when auto starts, so at the branch point the only work left is
+looking up the chosen command, which SelectCommand then runs. Unknown selector values fall
+back to the first branch. */
+public class BranchWeaver extends SelectCommand {
+
+    // Create empty variables for reassignment
+    private final SwerveSubsystem swerveSubsystem;
+    private final PIDController xController;
+    private final PIDController yController;
+    private final PIDController ppthetaController;
+    private final HashMap<String, Command> eventMap;
+
+    // Branch name to trajectory being generated, then to ready to run command
+    private final Map<String, CompletableFuture<PathPlannerTrajectory>> trajectories = new LinkedHashMap<>();
+    private final Map<String, Command> branches;
+
+    // Command constructor, starts generating every branch in the background
+    public BranchWeaver(SwerveSubsystem swerveSubsystem, PIDController xController, PIDController yController,
+    PIDController ppthetaController, HashMap<String, Command> eventMap,
+    Map<String, Supplier<PathPlannerTrajectory>> generators, Supplier<String> selector){
+        this(swerveSubsystem, xController, yController, ppthetaController, eventMap, generators, selector, new LinkedHashMap<>());
+    }
+
+    // The branch map is shared with the select lambda, it's filled in by prepare()
+    private BranchWeaver(SwerveSubsystem swerveSubsystem, PIDController xController, PIDController yController,
+    PIDController ppthetaController, HashMap<String, Command> eventMap,
+    Map<String, Supplier<PathPlannerTrajectory>> generators, Supplier<String> selector, Map<String, Command> branches){
+        super(() -> select(branches, selector.get()));
+
+        // Assign empty variables values passed from constructor
+        this.swerveSubsystem = swerveSubsystem;
+        this.xController = xController;
+        this.yController = yController;
+        this.ppthetaController = ppthetaController;
+        this.eventMap = eventMap;
+        this.branches = branches;
+
+        // Own threads, the common pool only has one on the roboRIO's two cores
+        int threads = Math.max(1, Math.min(generators.size(), AutoConstants.kPathLoaderThreads));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread generator = new Thread(runnable, "Branch Generator");
+            generator.setDaemon(true);
+            return generator;
+        });
+        for(Map.Entry<String, Supplier<PathPlannerTrajectory>> generator : generators.entrySet()){
+            trajectories.put(generator.getKey(), CompletableFuture.supplyAsync(generator.getValue(), pool));
+        }
+        pool.shutdown();
+
+        // Tell command that it needs swerveSubsystem
+        addRequirements(swerveSubsystem);
+    }
+
+    // Branch command for a selector value, the first branch if there's no branch by that name
+    private static Command select(Map<String, Command> branches, String name){
+        Command selected = branches.get(name);
+        if(selected == null){
+            selected = branches.values().iterator().next();
+            DriverStation.reportWarning("Branch weaver: no branch named " + name + ", running the first one", false);
+        }
+        return selected;
+    }
+
+    // True once every branch trajectory has been generated
+    public boolean isGenerated(){
+        for(CompletableFuture<PathPlannerTrajectory> trajectory : trajectories.values()){
+            if(!trajectory.isDone()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Build the branch commands, waits for any trajectory that isn't done yet
+    public void prepare(){
+        if(!branches.isEmpty()){
+            return;
+        }
+        if(!isGenerated()){
+            DriverStation.reportWarning("Branch weaver: waiting on branch generation", false);
+        }
+        for(Map.Entry<String, CompletableFuture<PathPlannerTrajectory>> trajectory : trajectories.entrySet()){
+            branches.put(trajectory.getKey(), new TrajectoryWeaver(swerveSubsystem, xController, yController,
+            ppthetaController, trajectory.getValue().join(), eventMap, false));
+        }
+    }
+
+    // Make sure the branches exist before SelectCommand picks one
+    @Override
+    public void initialize() {
+        prepare();
+        super.initialize();
+    }
+
+}
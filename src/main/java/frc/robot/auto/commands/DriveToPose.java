@@ -0,0 +1,89 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.auto.commands;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.PosePlanner;
+
+/* Drives from wherever the robot is to a goal pose around the field obstacles. The plan is
+started on the planner's thread when the command starts, the modules hold still for the few
+milliseconds it takes, then the path is followed with HolonomicFollower. Ends right away if
+the goal can't be reached or the robot is already there. */
+public class DriveToPose extends CommandBase {
+
+    // Create empty variables for reassignment
+    private final SwerveSubsystem swerveSubsystem;
+    private final PosePlanner planner;
+    private final Supplier<Pose2d> goal;
+    private final PIDController xController;
+    private final PIDController yController;
+    private final PIDController thetaController;
+
+    private CompletableFuture<Trajectory> plan;
+    private HolonomicFollower follower;
+    private boolean failed;
+
+    // Command constructor and requirements
+    public DriveToPose(SwerveSubsystem swerveSubsystem, PosePlanner planner, Supplier<Pose2d> goal,
+    PIDController xController, PIDController yController, PIDController thetaController){
+
+        // Assign empty variables values passed from constructor
+        this.swerveSubsystem = swerveSubsystem;
+        this.planner = planner;
+        this.goal = goal;
+        this.xController = xController;
+        this.yController = yController;
+        this.thetaController = thetaController;
+
+        // Tell command that it needs swerveSubsystem
+        addRequirements(swerveSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+        follower = null;
+        failed = false;
+        plan = planner.planAsync(swerveSubsystem.getPose(), goal.get());
+    }
+
+    @Override
+    public void execute() {
+
+        // Hold still until the plan comes back
+        if(follower == null){
+            if(!plan.isDone()){
+                swerveSubsystem.stopModules();
+                return;
+            }
+            Trajectory trajectory = plan.exceptionally(error -> null).join();
+            SmartDashboard.putNumber("Plan Time ms", planner.getLastPlanMillis());
+            if(trajectory == null){
+                DriverStation.reportWarning("Drive to pose: no path to the goal", false);
+                failed = true;
+                return;
+            }
+            follower = new HolonomicFollower(swerveSubsystem, trajectory, xController, yController, thetaController);
+            follower.initialize();
+        }
+        follower.execute();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return failed || (follower != null && follower.isFinished());
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        plan.cancel(false);
+        swerveSubsystem.stopModules();
+    }
+
+}
@@ -0,0 +1,177 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.auto.commands;
+import java.util.concurrent.CompletableFuture;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.ChassisVelocityEstimator;
+import frc.robot.util.HolonomicHeading;
+import frc.robot.util.TrajectoryReplanner;
+import frc.robot.util.Constants.AutoConstants;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.RateConstants;
+
+/* Follows a trajectory with the outputs aimed at when they take effect instead of when
+they're worked out. Each cycle the reference is sampled a lookahead ahead (measured time
+from pose read to output, plus the actuation delay and half a loop), the robot's pose is
+pushed forward by the same lookahead using the fused chassis velocity, and the feedback acts
+on the difference between those two. Reference velocity and heading rate go in as
+feedforward, so the PID only has to clean up real error. Timing comes from one clock read
+per cycle. Works for WPILib and PathPlanner trajectories.
+
+If the robot stays too far from where it should be for a few cycles (it got bumped), the
+rest of the path is rebuilt from its current pose and velocity on the replanner's thread. The
+new trajectory is only picked up at the start of a cycle, along with the time it starts from,
+so the modules never stop and one cycle never mixes the two. */
+public class HolonomicFollower extends CommandBase {
+
+    // Create empty variables for reassignment
+    private final SwerveSubsystem swerveSubsystem;
+    private final Trajectory path;
+    private final PIDController xController;
+    private final PIDController yController;
+    private final PIDController thetaController;
+
+    // Trajectory being followed, the original path until a replan swaps in
+    private Trajectory trajectory;
+    private double startTime;
+
+    // Clock read at the start of the latest cycle
+    private double now;
+
+    // Replan in flight and when its pose was read
+    private CompletableFuture<Trajectory> replan;
+    private double replanTime;
+    private double lastReplanTime;
+    private int deviatedCycles;
+    private int replanCount;
+
+    // Smoothed time from the pose read to the module states going out
+    private double processingLatency;
+
+    // Reused module outputs
+    private final double[] moduleSpeeds = new double[4];
+    private final double[] moduleAngles = new double[4];
+
+    // Command constructor and requirements
+    public HolonomicFollower(SwerveSubsystem swerveSubsystem, Trajectory trajectory, PIDController xController,
+    PIDController yController, PIDController thetaController){
+
+        // Assign empty variables values passed from constructor
+        this.swerveSubsystem = swerveSubsystem;
+        this.path = trajectory;
+        this.xController = xController;
+        this.yController = yController;
+        this.thetaController = thetaController;
+
+        // Tell theta PID controller that its a circle
+        thetaController.enableContinuousInput(-Math.PI, Math.PI);
+
+        // Tell command that it needs swerveSubsystem
+        addRequirements(swerveSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+        xController.reset();
+        yController.reset();
+        thetaController.reset();
+        swerveSubsystem.getModuleAngles(moduleAngles);
+        trajectory = path;
+        replan = null;
+        deviatedCycles = 0;
+        replanCount = 0;
+        startTime = Timer.getFPGATimestamp();
+        now = startTime;
+        lastReplanTime = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public void execute() {
+
+        // One clock read per cycle
+        now = Timer.getFPGATimestamp();
+
+        // Swap in a finished replan before anything reads the trajectory this cycle
+        if(replan != null && replan.isDone()){
+            Trajectory replanned = replan.exceptionally(error -> null).join();
+            replan = null;
+            if(replanned != null){
+                trajectory = replanned;
+                startTime = replanTime;
+                replanCount++;
+                SmartDashboard.putNumber("Follower Replans", replanCount);
+            }
+        }
+        double elapsed = now - startTime;
+        double lookahead = processingLatency + DriveConstants.kActuationLatencySeconds + RateConstants.kMainLoopPeriodSeconds / 2
+            + AutoConstants.kFollowerExtraLookaheadSeconds;
+
+        // Where the robot will be once these outputs act, from the fused velocity
+        Pose2d pose = swerveSubsystem.getPose();
+        ChassisVelocityEstimator velocity = swerveSubsystem.getVelocityEstimator();
+        double heading = pose.getRotation().getRadians();
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        double velocityX = velocity.getVx() * cos - velocity.getVy() * sin;
+        double velocityY = velocity.getVx() * sin + velocity.getVy() * cos;
+        double predictedX = pose.getX() + velocityX * lookahead;
+        double predictedY = pose.getY() + velocityY * lookahead;
+        double predictedHeading = heading + velocity.getOmega() * lookahead;
+        checkDeviation(now, elapsed, pose, velocityX, velocityY);
+
+        // Where the robot should be at that time, heading rate from a short difference
+        Trajectory.State reference = trajectory.sample(elapsed + lookahead);
+        double referenceHeading = HolonomicHeading.of(trajectory, reference);
+        double nextHeading = HolonomicHeading.of(trajectory, trajectory.sample(elapsed + lookahead + AutoConstants.kFollowerHeadingRateStepSeconds));
+        double headingRate = Math.IEEEremainder(nextHeading - referenceHeading, 2 * Math.PI) / AutoConstants.kFollowerHeadingRateStepSeconds;
+
+        // Feedforward from the reference plus feedback on the predicted error, field relative
+        double direction = reference.poseMeters.getRotation().getRadians();
+        double fieldVx = reference.velocityMetersPerSecond * Math.cos(direction)
+            + xController.calculate(predictedX, reference.poseMeters.getX());
+        double fieldVy = reference.velocityMetersPerSecond * Math.sin(direction)
+            + yController.calculate(predictedY, reference.poseMeters.getY());
+        double omega = headingRate + thetaController.calculate(predictedHeading, referenceHeading);
+
+        // Into the robot frame at the predicted heading
+        double predictedCos = Math.cos(predictedHeading);
+        double predictedSin = Math.sin(predictedHeading);
+        double vx = fieldVx * predictedCos + fieldVy * predictedSin;
+        double vy = -fieldVx * predictedSin + fieldVy * predictedCos;
+
+        DriveConstants.kFixedKinematics.toModuleStates(vx, vy, omega, moduleSpeeds, moduleAngles);
+        swerveSubsystem.setModuleStates(moduleSpeeds, moduleAngles);
+
+        // Measure how long this cycle took from pose read to output
+        double cycle = Timer.getFPGATimestamp() - now;
+        processingLatency += DriveConstants.kLatencySmoothing * (cycle - processingLatency);
+        SmartDashboard.putNumber("Follower Lookahead", lookahead);
+    }
+
+    // Start a replan once the robot has been too far off the reference for long enough
+    private void checkDeviation(double now, double elapsed, Pose2d pose, double fieldVx, double fieldVy){
+        Pose2d reference = trajectory.sample(elapsed).poseMeters;
+        double error = Math.hypot(reference.getX() - pose.getX(), reference.getY() - pose.getY());
+        deviatedCycles = error > AutoConstants.kReplanDeviationMeters ? deviatedCycles + 1 : 0;
+
+        if(deviatedCycles >= AutoConstants.kReplanConfirmCycles && replan == null
+            && now - lastReplanTime >= AutoConstants.kReplanCooldownSeconds){
+            replanTime = now;
+            lastReplanTime = now;
+            replan = TrajectoryReplanner.replanAsync(trajectory, elapsed, pose, fieldVx, fieldVy);
+        }
+    }
+
+    // Done once the trajectory's time is up, judged by this cycle's clock read
+    @Override
+    public boolean isFinished() {
+        return now - startTime >= trajectory.getTotalTimeSeconds();
+    }
+
+}
@@ -0,0 +1,108 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.auto.commands;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.HolonomicHeading;
+import frc.robot.util.PathMetrics;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Runs next to a path following command and records the reference pose against the
+odometry pose every cycle. When the path ends the tracking error stats go to the
+"Auto Report" table and the driver station log. Paths are numbered from the first path of
+the routine so a whole run can be compared against another run or code version. */
+public class PathTracker extends CommandBase {
+
+    // Paths in the current auto run, reset by the first path
+    private static final double[] pathDurations = new double[AutoConstants.kMaxReportedPaths];
+    private static int pathCount;
+    private static double runStartTime;
+
+    // Create empty variables for reassignment
+    private final SwerveSubsystem swerveSubsystem;
+    private final Trajectory trajectory;
+    private final boolean isFirstPath;
+    private final PathMetrics metrics = new PathMetrics(AutoConstants.kPathMetricsCapacity);
+    private final double[] stats = new double[PathMetrics.kStatCount];
+    private double startTime;
+
+    // Command constructor, no requirements so it can run next to the follower
+    public PathTracker(SwerveSubsystem swerveSubsystem, Trajectory trajectory, boolean isFirstPath){
+        this.swerveSubsystem = swerveSubsystem;
+        this.trajectory = trajectory;
+        this.isFirstPath = isFirstPath;
+    }
+
+    @Override
+    public void initialize() {
+        metrics.clear();
+        startTime = Timer.getFPGATimestamp();
+        if(isFirstPath){
+            pathCount = 0;
+            runStartTime = startTime;
+        }
+    }
+
+    // Sample the reference at the same time the follower does and compare
+    @Override
+    public void execute() {
+        double now = Timer.getFPGATimestamp();
+        Trajectory.State reference = trajectory.sample(now - startTime);
+        Pose2d actual = swerveSubsystem.getPose();
+        metrics.add(now, reference.poseMeters.getX(), reference.poseMeters.getY(),
+        reference.poseMeters.getRotation().getRadians(), HolonomicHeading.of(trajectory, reference),
+        actual.getX(), actual.getY(), actual.getRotation().getRadians());
+    }
+
+    // Publish this path's stats and the run totals
+    @Override
+    public void end(boolean interrupted) {
+        double now = Timer.getFPGATimestamp();
+        double duration = now - startTime;
+        metrics.compute(stats);
+
+        if(pathCount < pathDurations.length){
+            pathDurations[pathCount] = duration;
+        }
+        pathCount++;
+
+        // Report data to network tables
+        NetworkTable report = NetworkTableInstance.getDefault().getTable("Auto Report");
+        NetworkTable path = report.getSubTable("Path " + pathCount);
+        path.getEntry("Planned Time").setDouble(trajectory.getTotalTimeSeconds());
+        path.getEntry("Actual Time").setDouble(duration);
+        path.getEntry("Interrupted").setBoolean(interrupted);
+        path.getEntry("RMS Cross Track").setDouble(stats[PathMetrics.kRmsCrossTrack]);
+        path.getEntry("Max Cross Track").setDouble(stats[PathMetrics.kMaxCrossTrack]);
+        path.getEntry("RMS Along Track").setDouble(stats[PathMetrics.kRmsAlongTrack]);
+        path.getEntry("Max Along Track").setDouble(stats[PathMetrics.kMaxAlongTrack]);
+        path.getEntry("Mean Lag").setDouble(stats[PathMetrics.kMeanAlongTrack]);
+        path.getEntry("RMS Heading").setDouble(stats[PathMetrics.kRmsHeading]);
+        path.getEntry("Max Heading").setDouble(stats[PathMetrics.kMaxHeading]);
+        path.getEntry("Final Position Error").setDouble(stats[PathMetrics.kFinalPosition]);
+        path.getEntry("Final Heading Error").setDouble(stats[PathMetrics.kFinalHeading]);
+
+        double[] durations = new double[Math.min(pathCount, pathDurations.length)];
+        System.arraycopy(pathDurations, 0, durations, 0, durations.length);
+        report.getEntry("Path Count").setDouble(pathCount);
+        report.getEntry("Path Durations").setDoubleArray(durations);
+        report.getEntry("Total Path Time").setDouble(now - runStartTime);
+
+        // Tell driver station log how the path went
+        DriverStation.reportWarning(String.format(
+        "Path %d: %.2fs of %.2fs planned%s, cross track rms %.3f max %.3f m, lag rms %.3f max %.3f mean %.3f m, heading rms %.1f max %.1f deg, final %.3f m %.1f deg%s",
+        pathCount, duration, trajectory.getTotalTimeSeconds(), interrupted ? " (interrupted)" : "",
+        stats[PathMetrics.kRmsCrossTrack], stats[PathMetrics.kMaxCrossTrack],
+        stats[PathMetrics.kRmsAlongTrack], stats[PathMetrics.kMaxAlongTrack], stats[PathMetrics.kMeanAlongTrack],
+        Math.toDegrees(stats[PathMetrics.kRmsHeading]), Math.toDegrees(stats[PathMetrics.kMaxHeading]),
+        stats[PathMetrics.kFinalPosition], Math.toDegrees(stats[PathMetrics.kFinalHeading]),
+        metrics.hasOverflowed() ? " (samples truncated)" : ""), false);
+    }
+
+}
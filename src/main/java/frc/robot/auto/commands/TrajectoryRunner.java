@@ -6,12 +6,11 @@ import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.SwerveControllerCommand;
 import frc.robot.commands.ReportWarning;
 import frc.robot.commands.ResetOdometry;
 import frc.robot.subsystems.SwerveSubsystem;
-import frc.robot.util.Constants.DriveConstants;
 
 // Runs a given trajectory as a command 
 public class TrajectoryRunner extends SequentialCommandGroup{
@@ -24,8 +23,9 @@ public class TrajectoryRunner extends SequentialCommandGroup{
         // Tell theta PID controller that its a circle
         thetaController.enableContinuousInput(-Math.PI, Math.PI);
 
-         // Create controller command, this outputs module states for the trajectory given
-        SwerveControllerCommand swerveControllerCommand = new SwerveControllerCommand(trajectory, swerveSubsystem::getPose, DriveConstants.kDriveKinematics, xController, yController, thetaController, swerveSubsystem::setModuleStates, swerveSubsystem);
+         // Create controller command, this outputs latency compensated module states for the trajectory given
+        HolonomicFollower swerveControllerCommand = new HolonomicFollower(swerveSubsystem, trajectory, xController, yController,
+        new PIDController(thetaController.getP(), thetaController.getI(), thetaController.getD()));
 
         // Create report warning command, prints running trajectory to driver station
         ReportWarning sendData = new ReportWarning("Trajectory runner: " + trajectory.toString());
@@ -34,7 +34,8 @@ public class TrajectoryRunner extends SequentialCommandGroup{
             // Commands to run sequentially
             new SequentialCommandGroup(
                 new ResetOdometry(swerveSubsystem, trajectory.getInitialPose()),  // Reset robot odometry before movement 
-                swerveControllerCommand, // Move robot with trajectory and module states
+                new ParallelDeadlineGroup(swerveControllerCommand, // Move robot with trajectory and module states
+                    new PathTracker(swerveSubsystem, trajectory, true)), // Record tracking error while it runs
                 sendData, // Tell driver station that command is running
                 new InstantCommand(() -> swerveSubsystem.stopModules()) // Stop all modules
             )
@@ -3,15 +3,15 @@
 package frc.robot.auto.commands;
 import java.util.HashMap;
 import com.pathplanner.lib.PathPlannerTrajectory;
-import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+import com.pathplanner.lib.commands.FollowPathWithEvents;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.commands.ReportWarning;
 import frc.robot.commands.ResetOdometry;
 import frc.robot.subsystems.SwerveSubsystem;
-import frc.robot.util.Constants.DriveConstants;
 
 // Runs a given pp-trajectory as a command 
 public class TrajectoryWeaver extends SequentialCommandGroup{
@@ -33,8 +33,13 @@ public class TrajectoryWeaver extends SequentialCommandGroup{
         addCommands(
             // Commands to run sequentially
             new SequentialCommandGroup(
-              // Move robot with path planner swerve command
-              new PPSwerveControllerCommand(pptrajectory, swerveSubsystem::getPose, DriveConstants.kDriveKinematics, xController, yController, ppthetaController, swerveSubsystem::setModuleStates, eventMap, swerveSubsystem),
+              // Move robot with latency compensated follower, running event markers along the way
+              new ParallelDeadlineGroup(
+                new FollowPathWithEvents(
+                  new HolonomicFollower(swerveSubsystem, pptrajectory, xController, yController, ppthetaController),
+                  pptrajectory.getMarkers(), eventMap),
+                // Record tracking error while it runs
+                new PathTracker(swerveSubsystem, pptrajectory, isFirstPath)),
               // Tell driver station that command is running
               new ReportWarning("Trajectory weaver: " + pptrajectory.toString()),
               // Stop all module movement
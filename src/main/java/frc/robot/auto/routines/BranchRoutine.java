@@ -0,0 +1,92 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.auto.routines;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.PrintCommand;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.robot.auto.commands.BranchWeaver;
+import frc.robot.auto.commands.TrajectoryWeaver;
+import frc.robot.commands.ReportWarning;
+import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.PathLibrary;
+import frc.robot.util.Constants.AutoConstants;
+
+// Drives the first path, then picks the next one from the selector when it gets there
+public class BranchRoutine extends SequentialCommandGroup{
+
+    // First path, then each branch and the path it runs, the first branch is the fallback
+    private static final String kFirstPath = "pathOne";
+    private static final String[] kBranches = {"target", "noTarget"};
+    private static final String[] kBranchPaths = {"pathTwo", "forward1M"};
+
+    // Seconds to hold still after each path, and the longest each marker command may run,
+    // the commands below are built from these so the auto budget always matches them
+    private static final double[] kPauseSeconds = {0, 0};
+    public static final Map<String, Double> kMarkerSeconds = Map.of("marker1", 0.0);
+
+    // Routine command constructor, selector returns "target" or "noTarget"
+    public BranchRoutine(SwerveSubsystem swerveSubsystem, PIDController xController,
+    PIDController yController,  PIDController ppthetaController, PathLibrary pathLibrary, Supplier<String> selector){
+
+        // Create event map for this routine
+        HashMap<String, Command> eventMap = new HashMap<>();
+
+        // Add commands to markers
+        eventMap.put("marker1", new PrintCommand("BRANCH: Passed Marker 1").withTimeout(kMarkerSeconds.get("marker1")));
+
+        // Alternatives after the first path, generated in parallel while disabled
+        Map<String, Supplier<PathPlannerTrajectory>> branches = new LinkedHashMap<>();
+        for(int i = 0; i < kBranches.length; i++){
+            String path = kBranchPaths[i];
+            branches.put(kBranches[i], () -> pathLibrary.get(path));
+        }
+        BranchWeaver branch = new BranchWeaver(swerveSubsystem, xController, yController, ppthetaController, eventMap, branches, selector);
+
+        // Import the first path
+        PathPlannerTrajectory pathOne = pathLibrary.get(kFirstPath);
+
+        // Add commands to routine
+        addCommands(
+        new InstantCommand(branch::prepare), // Have every branch ready before moving
+        new ReportWarning("Running BRANCH1"),
+        new TrajectoryWeaver(swerveSubsystem, xController, yController, ppthetaController, pathOne, eventMap, true),
+        new WaitCommand(kPauseSeconds[0]),
+        new ReportWarning("Running BRANCH2"),
+        branch,
+        new WaitCommand(kPauseSeconds[1])
+        );
+
+    }
+
+    // Every branch name, in the order they're tried
+    public static List<String> getBranches(){
+        return List.of(kBranches);
+    }
+
+    // Load the paths one branch runs in order, used by the auto simulator
+    public static List<PathPlannerTrajectory> loadPaths(String branch){
+        int index = getBranches().indexOf(branch);
+        if(index < 0){
+            throw new IllegalArgumentException("No branch named " + branch);
+        }
+        return List.of(
+        PathPlanner.loadPath(kFirstPath, AutoConstants.kPathConstraints),
+        PathPlanner.loadPath(kBranchPaths[index], AutoConstants.kPathConstraints));
+    }
+
+    // Pause after each path from loadPaths, waits and other commands that hold the robot still
+    public static double[] getPauseSeconds(){
+        return kPauseSeconds.clone();
+    }
+
+}
@@ -2,16 +2,20 @@
 
 package frc.robot.auto.routines;
 import java.util.HashMap;
-import com.pathplanner.lib.PathConstraints;
+import java.util.List;
+import java.util.Map;
 import com.pathplanner.lib.PathPlanner;
 import com.pathplanner.lib.PathPlannerTrajectory;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.PrintCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitCommand;
 import frc.robot.auto.commands.TrajectoryWeaver;
 import frc.robot.commands.ReportWarning;
 import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.PathLibrary;
+import frc.robot.util.Constants.AutoConstants;
 
 // Runs a given pp-trajectory as a command 
 public class TestRoutine extends SequentialCommandGroup{
@@ -19,30 +23,52 @@ public class TestRoutine extends SequentialCommandGroup{
 
 
     
-    // Routine command constructor
+    // Paths this routine runs, in order
+    private static final String[] kPathNames = {"pathOne", "pathTwo"};
+
+    // Seconds to hold still after each path, and the longest each marker command may run,
+    // the commands below are built from these so the auto budget always matches them
+    private static final double[] kPauseSeconds = {0, 0};
+    public static final Map<String, Double> kMarkerSeconds = Map.of("marker1", 0.0);
+
+    // Routine command constructor, paths come from the library
     public TestRoutine(SwerveSubsystem swerveSubsystem, PIDController xController,
-    PIDController yController,  PIDController ppthetaController){
+    PIDController yController,  PIDController ppthetaController, PathLibrary pathLibrary){
 
         // Create event map for this routine
         HashMap<String, Command> eventMap = new HashMap<>();
 
         // Add commands to markers
-        eventMap.put("marker1", new PrintCommand("TRAJ1: Passed Marker 1"));
+        eventMap.put("marker1", new PrintCommand("TRAJ1: Passed Marker 1").withTimeout(kMarkerSeconds.get("marker1")));
 
         // Import the paths to use
-        PathPlannerTrajectory pathOne = PathPlanner.loadPath("pathOne", new PathConstraints(0.5, 0.5) /* velocity and acceleration */ ); 
-        PathPlannerTrajectory pathTwo = PathPlanner.loadPath("pathTwo", new PathConstraints(0.5, 0.5) /* velocity and acceleration */ ); 
+        PathPlannerTrajectory pathOne = pathLibrary.get(kPathNames[0]);
+        PathPlannerTrajectory pathTwo = pathLibrary.get(kPathNames[1]);
 
         // Add commands to routine
         addCommands(
         new ReportWarning("Running TRAJ1"),
         new TrajectoryWeaver(swerveSubsystem, xController, yController, ppthetaController, pathOne, eventMap, true),
+        new WaitCommand(kPauseSeconds[0]),
         new ReportWarning("Running TRAJ2"),
-        new TrajectoryWeaver(swerveSubsystem, xController, yController, ppthetaController, pathTwo, eventMap, false)
+        new TrajectoryWeaver(swerveSubsystem, xController, yController, ppthetaController, pathTwo, eventMap, false),
+        new WaitCommand(kPauseSeconds[1])
         );
 
     }
 
+    // Load this routine's paths in the order they run, also used by the auto simulator
+    public static List<PathPlannerTrajectory> loadPaths(){
+        return List.of(
+        PathPlanner.loadPath(kPathNames[0], AutoConstants.kPathConstraints),
+        PathPlanner.loadPath(kPathNames[1], AutoConstants.kPathConstraints));
+    }
+
+    // Pause after each path from loadPaths, waits and other commands that hold the robot still
+    public static double[] getPauseSeconds(){
+        return kPauseSeconds.clone();
+    }
+
 
 
 
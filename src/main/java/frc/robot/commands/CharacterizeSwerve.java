@@ -0,0 +1,154 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.commands;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Properties;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.CharacterizationLog;
+import frc.robot.util.FeedforwardFit;
+import frc.robot.util.Constants.CharacterizationConstants;
+
+/* Runs one quasistatic (slow voltage ramp) or dynamic (voltage step) test on the drive or
+turning motors. A notifier applies the voltage and captures samples at 250 Hz into a shared
+log, and when the test ends every sample in the log so far is fit for kS, kV and kA. Run
+all four tests for a mechanism into the same log to get a good fit. */
+public class CharacterizeSwerve extends CommandBase {
+
+  public enum Mechanism {DRIVE, TURNING}
+
+  // Create empty variables for reassignment
+  private final SwerveSubsystem swerveSubsystem;
+  private final CharacterizationLog log;
+  private final Mechanism mechanism;
+  private final boolean dynamic;
+  private final double direction;
+  private final Notifier notifier;
+
+  // Written by the capture thread
+  private volatile boolean logFull;
+  private double startTime;
+
+  // Cleared in end() under the same lock as a sample, so no voltage goes out after the motors stop
+  private boolean running;
+
+  // Fit results reused between runs
+  private final double[] gains = new double[4];
+
+  // Command constructor and requirements
+  public CharacterizeSwerve(SwerveSubsystem swerveSubsystem, CharacterizationLog log, Mechanism mechanism,
+  boolean dynamic, boolean forward) {
+
+    // Assign empty variables values passed from constructor
+    this.swerveSubsystem = swerveSubsystem;
+    this.log = log;
+    this.mechanism = mechanism;
+    this.dynamic = dynamic;
+    this.direction = forward ? 1 : -1;
+    this.notifier = new Notifier(this::sample);
+
+    // Tell command that it needs swerveSubsystem
+    addRequirements(swerveSubsystem);
+  }
+
+  @Override
+  public void initialize() {
+    logFull = false;
+    log.startSegment();
+    swerveSubsystem.setFastStatusFrames(true);
+    startTime = Timer.getFPGATimestamp();
+    synchronized(this){
+      running = true;
+    }
+    notifier.startPeriodic(CharacterizationConstants.kSamplePeriodSeconds);
+  }
+
+  // Runs on the notifier thread, apply this instant's voltage and log a sample
+  private synchronized void sample() {
+    if(!running){
+      return;
+    }
+    double now = Timer.getFPGATimestamp();
+    double elapsed = now - startTime;
+    boolean turning = mechanism == Mechanism.TURNING;
+
+    double volts;
+    if(dynamic){
+      volts = turning ? CharacterizationConstants.kTurningStepVolts : CharacterizationConstants.kDriveStepVolts;
+    }
+    else{
+      volts = elapsed * (turning ? CharacterizationConstants.kTurningRampVoltsPerSecond : CharacterizationConstants.kDriveRampVoltsPerSecond);
+    }
+    volts *= direction;
+
+    swerveSubsystem.setCharacterizationVoltage(volts, turning);
+    if(!log.add(now, volts, swerveSubsystem.getCharacterizationPosition(turning), swerveSubsystem.getCharacterizationVelocity(turning))){
+      logFull = true;
+    }
+  }
+
+  // Stop when the test times out or the log fills up
+  @Override
+  public boolean isFinished() {
+    double timeout = dynamic ? CharacterizationConstants.kDynamicTimeoutSeconds : CharacterizationConstants.kQuasistaticTimeoutSeconds;
+    return logFull || Timer.getFPGATimestamp() - startTime >= timeout;
+  }
+
+  // Stop motors, then fit and report everything logged so far
+  @Override
+  public void end(boolean interrupted) {
+
+    // Waits out a sample in flight, later ones see running is false
+    synchronized(this){
+      running = false;
+    }
+    notifier.stop();
+    swerveSubsystem.stopModules();
+    swerveSubsystem.setFastStatusFrames(false);
+
+    log.computeAccelerations();
+    if(!FeedforwardFit.fit(log, CharacterizationConstants.kMinFitVelocity, gains)){
+      DriverStation.reportWarning("Characterization: not enough moving samples to fit " + mechanism, false);
+      return;
+    }
+
+    // Report data to smart dashboard
+    String prefix = mechanism == Mechanism.DRIVE ? "Drive " : "Turning ";
+    SmartDashboard.putNumber(prefix + "kS", gains[FeedforwardFit.kS]);
+    SmartDashboard.putNumber(prefix + "kV", gains[FeedforwardFit.kV]);
+    SmartDashboard.putNumber(prefix + "kA", gains[FeedforwardFit.kA]);
+    SmartDashboard.putNumber(prefix + "Fit R2", gains[FeedforwardFit.kRSquared]);
+    SmartDashboard.putNumber(prefix + "Samples", log.size());
+
+    save();
+  }
+
+  // Save gains next to the rest of the deploy files
+  private void save() {
+    File file = new File(Filesystem.getDeployDirectory(), "characterization/" + mechanism.name().toLowerCase() + ".properties");
+    file.getParentFile().mkdirs();
+
+    Properties properties = new Properties();
+    properties.setProperty("kS", Double.toString(gains[FeedforwardFit.kS]));
+    properties.setProperty("kV", Double.toString(gains[FeedforwardFit.kV]));
+    properties.setProperty("kA", Double.toString(gains[FeedforwardFit.kA]));
+    properties.setProperty("rSquared", Double.toString(gains[FeedforwardFit.kRSquared]));
+    properties.setProperty("samples", Integer.toString(log.size()));
+
+    try (Writer writer = new FileWriter(file)) {
+      properties.store(writer, "Characterization results for " + mechanism);
+      DriverStation.reportWarning("Characterization saved to " + file, false);
+    } catch (IOException e) {
+      DriverStation.reportError("Characterization save failed: " + e.getMessage(), false);
+    }
+  }
+
+}
@@ -2,22 +2,13 @@
 
 package frc.robot.commands;
 import frc.robot.subsystems.SwerveSubsystem;
+import frc.robot.util.HeadingController;
+import frc.robot.util.SwerveSetpointGenerator;
+import frc.robot.util.TeleopInput;
 import frc.robot.util.Constants.DriveConstants;
 import frc.robot.util.Constants.IOConstants;
-import java.util.function.Supplier;
-<<<<<<< HEAD
-
-import com.revrobotics.REVPhysicsSim;
-
-import edu.wpi.first.math.filter.SlewRateLimiter;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.math.system.plant.DCMotor;
-=======
-import edu.wpi.first.math.filter.SlewRateLimiter;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.kinematics.SwerveModuleState;
->>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
+import frc.robot.util.Constants.RateConstants;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 
@@ -25,75 +16,122 @@ public class SwerveJoystick extends CommandBase {
 
   // Create empty variables for reassignment
   private final SwerveSubsystem swerveSubsystem;
-  private final Supplier<Double> xSpdFunction, ySpdFunction, turningSpdFunction;
-  private final Supplier<Boolean> fieldOrientedFunction;
-  private final SlewRateLimiter xLimiter, yLimiter, turningLimiter;
+  private final TeleopInput input;
+  private final HeadingController headingController = new HeadingController();
+  private int headingResets;
+  private double lastTime;
+
+  // Smoothed time from the gyro read to the module states going out
+  private double processingLatency;
+
+  // Module speeds and angles, kept between cycles so stopped wheels hold their angle
+  private final double[] moduleSpeeds = new double[4];
+  private final double[] moduleAngles = new double[4];
+
+  // Limits each step to what the modules can reach from the last one
+  private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(DriveConstants.kFixedKinematics);
 
   // Command constructor and requirements 
-  public SwerveJoystick(SwerveSubsystem swerveSubsystem,
-  Supplier<Double> xSpdFunction, Supplier<Double> ySpdFunction, Supplier<Double> turningSpdFunction,
-  Supplier<Boolean> fieldOrientedFunction) {
+  public SwerveJoystick(SwerveSubsystem swerveSubsystem, TeleopInput input) {
 
     // Assign empty variables values passed from constructor and requirements
     this.swerveSubsystem = swerveSubsystem;
-    this.xSpdFunction = xSpdFunction;
-    this.ySpdFunction = ySpdFunction;
-    this.turningSpdFunction = turningSpdFunction;
-    this.fieldOrientedFunction = fieldOrientedFunction;
-
-    // Slew rate limiter
-    this.xLimiter = new SlewRateLimiter(DriveConstants.kTeleDriveMaxAccelerationUnitsPerSecond);
-    this.yLimiter = new SlewRateLimiter(DriveConstants.kTeleDriveMaxAccelerationUnitsPerSecond);
-    this.turningLimiter = new SlewRateLimiter(DriveConstants.kTeleDriveMaxAngularAccelerationUnitsPerSecond);
+    this.input = input;
 
     // Tell command that it needs swerveSubsystem
     addRequirements(swerveSubsystem);
-<<<<<<< HEAD
-    
-=======
->>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
 
   }
 
+  // Start from rest so old slew and heading state doesn't carry over
+  @Override
+  public void initialize(){
+    input.reset();
+    headingController.reset();
+    headingResets = swerveSubsystem.getHeadingResets();
+    lastTime = Timer.getFPGATimestamp();
+    swerveSubsystem.getModuleAngles(moduleAngles);
+    setpointGenerator.reset(moduleAngles);
+  }
+
   // Running loop of command
   @Override
   public void execute(){
 
-    // Set joystick inputs to speed variables
-    double xSpeed = xSpdFunction.get();
-    double ySpeed = ySpdFunction.get();
-    double turningSpeed = turningSpdFunction.get();
+    // Sample the gyro once for this cycle
+    double sampleTime = Timer.getFPGATimestamp();
+    double yaw = swerveSubsystem.getHeadingRadians();
+    double yawRate = swerveSubsystem.getYawRate();
+    double dt = Math.min(sampleTime - lastTime, DriveConstants.kMaxTeleopStepSeconds);
+    lastTime = sampleTime;
 
-    // Apply deadband to protect motors
-    xSpeed = Math.abs(xSpeed) > IOConstants.kDeadband ? xSpeed : 0.0;
-    ySpeed = Math.abs(ySpeed) > IOConstants.kDeadband ? ySpeed : 0.0;
-    turningSpeed = Math.abs(turningSpeed) > IOConstants.kDeadband ? turningSpeed : 0.0;
+    // Sample and shape this cycle's joystick inputs
+    input.update();
+    double xSpeed = input.getXSpeed();
+    double ySpeed = input.getYSpeed();
+    double turningSpeed = input.getTurningSpeed();
+    boolean fieldOriented = input.isFieldOriented();
 
-    // Apply slew rate to joystick input to make robot input smoother
-    xSpeed = xLimiter.calculate(xSpeed) * DriveConstants.kTeleDriveMaxSpeedMetersPerSecond;
-    ySpeed = yLimiter.calculate(ySpeed) * DriveConstants.kTeleDriveMaxSpeedMetersPerSecond;
-    turningSpeed = turningLimiter.calculate(turningSpeed) * DriveConstants.kTeleDriveMaxAngularSpeedRadiansPerSecond;
+    // Hold or snap heading when the driver isn't turning
+    turningSpeed = applyHeadingControl(turningSpeed, yaw, yawRate, dt);
 
     // Apply field oriented mode
-    ChassisSpeeds chassisSpeeds;
-    if(fieldOrientedFunction.get()){
-      chassisSpeeds = ChassisSpeeds.fromFieldRelativeSpeeds(xSpeed, ySpeed, turningSpeed, swerveSubsystem.getRotation2d());
-    }
-    // Apply non-field oriented mode
-    else{
-      chassisSpeeds = new ChassisSpeeds(xSpeed,ySpeed,turningSpeed);
+    if(fieldOriented){
+      /* Rotate into the heading the robot will have while these speeds are acting, not the
+      heading at the gyro read, otherwise translation curves off while spinning. The modules
+      act from when the states go out until the next cycle replaces them, so aim at the middle. */
+      double lookahead = processingLatency + DriveConstants.kActuationLatencySeconds + RateConstants.kMainLoopPeriodSeconds / 2;
+      double heading = yaw + yawRate * lookahead;
+      double cos = Math.cos(heading);
+      double sin = Math.sin(heading);
+      double fieldX = xSpeed;
+      xSpeed = fieldX * cos + ySpeed * sin;
+      ySpeed = -fieldX * sin + ySpeed * cos;
     }
 
     // Put field oriented value on smart dashboard
-    SmartDashboard.putBoolean("Field Oriented: ", fieldOrientedFunction.get());
+    SmartDashboard.putBoolean("Field Oriented: ", fieldOriented);
 
-    // Create module states using array
-    SwerveModuleState[] moduleStates = DriveConstants.kDriveKinematics.toSwerveModuleStates(chassisSpeeds);
+    // Work out the next reachable module states into the reused arrays
+    setpointGenerator.generate(xSpeed, ySpeed, turningSpeed, dt, moduleSpeeds, moduleAngles);
 
     // Set each module state
-    swerveSubsystem.setModuleStates(moduleStates);
+    swerveSubsystem.setModuleStates(moduleSpeeds, moduleAngles);
+
+    // Measure how long this cycle took from gyro read to output
+    double elapsed = Timer.getFPGATimestamp() - sampleTime;
+    processingLatency += DriveConstants.kLatencySmoothing * (elapsed - processingLatency);
+    SmartDashboard.putNumber("Drive Latency", processingLatency);
   }
   
+  // Replace the rotation input with heading hold or snap when they apply
+  private double applyHeadingControl(double turningSpeed, double yaw, double yawRate, double dt){
+    // Driver is turning or the gyro was just zeroed, drop any held heading
+    if(input.hasTurningInput() || headingResets != swerveSubsystem.getHeadingResets()){
+      headingResets = swerveSubsystem.getHeadingResets();
+      headingController.reset();
+      return turningSpeed;
+    }
+
+    // Snap buttons set a field angle, otherwise lock the heading once the robot has stopped turning
+    for(int i = 0; i < IOConstants.kSnapButtons.length; i++){
+      if(input.getRightButton(IOConstants.kSnapButtons[i])){
+        headingController.setGoal(IOConstants.kSnapAnglesRadians[i], yaw, yawRate);
+      }
+    }
+    if(!headingController.isActive() && Math.abs(yawRate) < DriveConstants.kHeadingCaptureRateRadiansPerSecond){
+      headingController.setGoal(yaw, yaw, yawRate);
+    }
+
+    // Put heading hold state on smart dashboard
+    SmartDashboard.putBoolean("Heading Hold", headingController.isActive());
+
+    if(!headingController.isActive()){
+      return turningSpeed;
+    }
+    return headingController.calculate(yaw, yawRate, dt);
+  }
+
   // Stop all module motor movement when command ends
   @Override
   public void end(boolean interrupted){swerveSubsystem.stopModules();}
@@ -0,0 +1,50 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.Arrays;
+import java.util.List;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Works out how long every routine in the auto simulator's registry takes without driving
+it: each path's total time, plus whatever its marker commands run past the end of it, plus
+the declared pauses after it. Prints the timing of every segment and exits with an error if
+any routine doesn't fit in the auto period less a small margin for scheduler cycles, so a
+routine that runs long fails the build instead of the match. Run with ./gradlew checkAutoBudget. */
+public class AutoBudget {
+
+    // Usage: AutoBudget [routine names...]
+    public static void main(String[] args){
+
+        List<String> names = args.length > 0 ? Arrays.asList(args) : AutoSimulator.getRoutineNames();
+        double limit = AutoConstants.kAutoPeriodSeconds - AutoConstants.kAutoBudgetMarginSeconds;
+        int over = 0;
+
+        for(String name : names){
+            SimRoutine routine = AutoSimulator.getRoutine(name);
+            List<Trajectory> segments = routine.getSegments();
+            System.out.println(name);
+
+            double time = 0;
+            for(int i = 0; i < segments.size(); i++){
+                double drive = segments.get(i).getTotalTimeSeconds();
+                double hold = routine.getHoldSeconds(i);
+                System.out.printf("  segment %d  start %6.2f s  drive %6.2f s  hold %6.2f s  end %6.2f s%n",
+                i + 1, time, drive, hold, time + drive + hold);
+                time += drive + hold;
+            }
+
+            boolean fits = time <= limit;
+            System.out.printf("  total %.2f s of %.2f s, %s %.2f s%n", time, limit, fits ? "slack" : "OVER BY", Math.abs(limit - time));
+            if(!fits){
+                over++;
+            }
+        }
+
+        if(over > 0){
+            System.err.printf("%d routine(s) run past the auto period%n", over);
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.auto.manuals.Forward2M;
+import frc.robot.auto.routines.BranchRoutine;
+import frc.robot.auto.routines.TestRoutine;
+import frc.robot.util.CompactTrajectory;
+import frc.robot.util.HolonomicHeading;
+import frc.robot.util.TrajectoryRetimer;
+
+/* Monte Carlo robustness check for auto routines. Every run gets its own SimDrivetrain
+with random starting error, sensor noise, wheel slip and latency, and runs are spread over
+every core with a parallel stream. Run it with ./gradlew simulateAutos. */
+public class AutoSimulator {
+
+    // Loop period, same as the robot
+    public static final double kDt = 0.02;
+
+    // Give up waiting for the robot to stop after this long
+    private static final double kStopTimeoutSeconds = 2;
+    private static final double kStoppedSpeed = 0.01;
+
+    // Tracking error the robot has to stay inside to count as settled
+    private static final double kSettleToleranceMeters = 0.05;
+
+    // Routines the simulator knows about, in registration order. Every auto the robot can select
+    // is here with the waits and marker times its routine declares, each branch on its own
+    private static final Map<String, Supplier<SimRoutine>> registry = new LinkedHashMap<>();
+
+    static {
+        register("forward2M", () -> new SimRoutine("forward2M", Forward2M.getTrajectory()));
+        register("testRoutine", () -> new SimRoutine("testRoutine", TestRoutine.loadPaths(),
+            TestRoutine.getPauseSeconds(), TestRoutine.kMarkerSeconds));
+        register("forward2MRetimed", () -> new SimRoutine("forward2MRetimed",
+            CompactTrajectory.of(TrajectoryRetimer.retime(Forward2M.getTrajectory()))));
+        for(String branch : BranchRoutine.getBranches()){
+            String name = "branchRoutine/" + branch;
+            register(name, () -> new SimRoutine(name, BranchRoutine.loadPaths(branch),
+                BranchRoutine.getPauseSeconds(), BranchRoutine.kMarkerSeconds));
+        }
+        register("testRoutineRetimed", () -> new SimRoutine("testRoutineRetimed",
+            TestRoutine.loadPaths().stream().map(TrajectoryRetimer::retime).collect(Collectors.toList())));
+    }
+
+    // Add a routine to the registry
+    public static void register(String name, Supplier<SimRoutine> routine){
+        registry.put(name, routine);
+    }
+
+    // Get every registered routine name
+    public static List<String> getRoutineNames(){
+        return new ArrayList<>(registry.keySet());
+    }
+
+    // Build a registered routine
+    public static SimRoutine getRoutine(String name){
+        Supplier<SimRoutine> routine = registry.get(name);
+        if(routine == null){
+            throw new IllegalArgumentException("No simulated routine named " + name);
+        }
+        return routine.get();
+    }
+
+    // Drive one routine once in its own simulated drivetrain
+    public static SimResult run(SimRoutine routine, SimNoise noise, SimGains gains, long seed){
+
+        SimDrivetrain drivetrain = new SimDrivetrain(noise, seed, gains.turningP);
+        SimFollower follower = new SimFollower(gains);
+        double[] command = new double[3];
+
+        List<Trajectory> segments = routine.getSegments();
+        Trajectory first = segments.get(0);
+        drivetrain.reset(first.getInitialPose().getX(), first.getInitialPose().getY(),
+            first.getInitialPose().getRotation().getRadians());
+
+        double time = 0;
+        double sumSquaredError = 0;
+        double maxError = 0;
+        double settleTime = 0;
+        int samples = 0;
+        double finalRefX = 0, finalRefY = 0, finalRefHeading = 0;
+
+        for(int index = 0; index < segments.size(); index++){
+            Trajectory segment = segments.get(index);
+            double total = segment.getTotalTimeSeconds();
+            for(double t = 0; t <= total; t += kDt){
+                Trajectory.State reference = segment.sample(t);
+                double heading = HolonomicHeading.of(segment, reference);
+
+                // Controller only sees odometry
+                follower.calculate(reference, heading, drivetrain.getEstimatedX(), drivetrain.getEstimatedY(),
+                    drivetrain.getEstimatedTheta(), command);
+                drivetrain.step(command[SimFollower.kVx], command[SimFollower.kVy], command[SimFollower.kOmega], kDt);
+                time += kDt;
+
+                // Tracking error is measured against where the robot really is
+                double error = Math.hypot(reference.poseMeters.getX() - drivetrain.getX(),
+                    reference.poseMeters.getY() - drivetrain.getY());
+                sumSquaredError += error * error;
+                maxError = Math.max(maxError, error);
+                if(error > kSettleToleranceMeters){
+                    settleTime = time;
+                }
+                samples++;
+
+                finalRefX = reference.poseMeters.getX();
+                finalRefY = reference.poseMeters.getY();
+                finalRefHeading = heading;
+            }
+
+            // Modules stop while declared commands run after the path
+            double hold = routine.getHoldSeconds(index);
+            for(double t = 0; t < hold; t += kDt){
+                drivetrain.step(0, 0, 0, kDt);
+                time += kDt;
+            }
+        }
+
+        // Modules are stopped at the end, wait for the robot to actually stop
+        double stopDeadline = time + kStopTimeoutSeconds;
+        do{
+            drivetrain.step(0, 0, 0, kDt);
+            time += kDt;
+        } while(drivetrain.getMaxWheelSpeed() > kStoppedSpeed && time < stopDeadline);
+
+        return new SimResult(
+            Math.hypot(finalRefX - drivetrain.getX(), finalRefY - drivetrain.getY()),
+            Math.abs(Math.IEEEremainder(finalRefHeading - drivetrain.getTheta(), 2 * Math.PI)),
+            samples > 0 ? Math.sqrt(sumSquaredError / samples) : 0,
+            maxError,
+            time,
+            settleTime);
+    }
+
+    // Run a routine many times in parallel, seeds are baseSeed + run index so results repeat
+    public static SimResult[] runMany(SimRoutine routine, SimNoise noise, SimGains gains, int runs, long baseSeed){
+        return IntStream.range(0, runs).parallel()
+            .mapToObj(i -> run(routine, noise, gains, baseSeed + i))
+            .toArray(SimResult[]::new);
+    }
+
+    // Print mean, median, 95th percentile and max of one metric
+    private static void printStat(String label, SimResult[] results, ToDoubleFunction<SimResult> metric){
+        double[] values = new double[results.length];
+        double sum = 0;
+        for(int i = 0; i < results.length; i++){
+            values[i] = metric.applyAsDouble(results[i]);
+            sum += values[i];
+        }
+        Arrays.sort(values);
+        System.out.printf("  %-24s mean %8.4f  p50 %8.4f  p95 %8.4f  max %8.4f%n", label,
+            sum / values.length, values[values.length / 2],
+            values[Math.min(values.length - 1, (int) Math.ceil(values.length * 0.95) - 1)],
+            values[values.length - 1]);
+    }
+
+    // Usage: AutoSimulator [runs] [routine names...]
+    public static void main(String[] args){
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        List<String> names = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : getRoutineNames();
+
+        SimNoise noise = new SimNoise();
+        SimGains gains = SimGains.fromConstants();
+        System.out.printf("Simulating %d runs per routine on %d cores, %s%n", runs,
+            Runtime.getRuntime().availableProcessors(), gains);
+
+        for(String name : names){
+            SimRoutine routine = getRoutine(name);
+
+            long start = System.nanoTime();
+            SimResult[] results = runMany(routine, noise, gains, runs, 0);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%s (%.2f s)%n", name, seconds);
+            printStat("final position error m", results, r -> r.finalPositionError);
+            printStat("final heading error deg", results, r -> Math.toDegrees(r.finalHeadingError));
+            printStat("rms tracking error m", results, r -> r.rmsTrackingError);
+            printStat("max tracking error m", results, r -> r.maxTrackingError);
+            printStat("settle time s", results, r -> r.settleTime);
+            printStat("completion time s", results, r -> r.completionTime);
+        }
+    }
+
+}
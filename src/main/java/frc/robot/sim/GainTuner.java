@@ -0,0 +1,170 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import frc.robot.util.TunedGains;
+
+/* Searches trajectory and steering gains against the simulated drivetrain. A coarse grid
+(x and y gains tied together) finds the right neighbourhood, then a finer grid around the
+best candidate tunes every gain on its own. Candidates are scored on a fork join pool, each
+one over the same set of noisy runs so they are compared fairly. The winner is written to
+deploy/tuning/gains.properties where Constants picks it up. Run it with ./gradlew tuneGains. */
+public class GainTuner {
+
+    // Coarse grid values
+    private static final double[] kCoarseXY = {0.5, 1, 1.5, 2, 3, 4, 6};
+    private static final double[] kCoarseTheta = {1, 2, 3, 4, 6, 8};
+    private static final double[] kCoarseTurning = {0.2, 0.35, 0.5, 0.75, 1};
+
+    // Fine grid multipliers around the best coarse candidate
+    private static final double[] kFineScale = {0.8, 0.9, 1, 1.1, 1.25};
+
+    // How much one second of settle time and one meter of final error cost vs one meter of rms error
+    private static final double kSettleWeight = 0.05;
+    private static final double kFinalErrorWeight = 0.5;
+
+    // One scored set of gains
+    public static class Candidate {
+        public final SimGains gains;
+        public final double rmsTrackingError;
+        public final double settleTime;
+        public final double finalPositionError;
+        public final double score;
+
+        Candidate(SimGains gains, double rmsTrackingError, double settleTime, double finalPositionError){
+            this.gains = gains;
+            this.rmsTrackingError = rmsTrackingError;
+            this.settleTime = settleTime;
+            this.finalPositionError = finalPositionError;
+            this.score = rmsTrackingError + kSettleWeight * settleTime + kFinalErrorWeight * finalPositionError;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%s  score %.4f  rms %.4f m  settle %.2f s  final %.4f m",
+                gains, score, rmsTrackingError, settleTime, finalPositionError);
+        }
+    }
+
+    private final List<SimRoutine> routines;
+    private final SimNoise noise;
+    private final int runsPerRoutine;
+    private final ForkJoinPool pool;
+
+    // Class constructor
+    public GainTuner(List<SimRoutine> routines, SimNoise noise, int runsPerRoutine, ForkJoinPool pool){
+        this.routines = routines;
+        this.noise = noise;
+        this.runsPerRoutine = runsPerRoutine;
+        this.pool = pool;
+    }
+
+    // Average one set of gains over every routine, same seeds for every candidate
+    public Candidate evaluate(SimGains gains){
+        double rms = 0, settle = 0, finalError = 0;
+        int count = 0;
+        for(SimRoutine routine : routines){
+            for(int i = 0; i < runsPerRoutine; i++){
+                SimResult result = AutoSimulator.run(routine, noise, gains, i);
+                rms += result.rmsTrackingError;
+                settle += result.settleTime;
+                finalError += result.finalPositionError;
+                count++;
+            }
+        }
+        return new Candidate(gains, rms / count, settle / count, finalError / count);
+    }
+
+    // Score candidates concurrently on the pool, best first
+    public List<Candidate> rank(List<SimGains> candidates) throws Exception {
+        return pool.submit(() -> candidates.parallelStream()
+            .map(this::evaluate)
+            .sorted(Comparator.comparingDouble(c -> c.score))
+            .collect(Collectors.toList())).get();
+    }
+
+    // Coarse grid, x and y share a gain
+    public static List<SimGains> coarseGrid(){
+        List<SimGains> grid = new ArrayList<>();
+        for(double xy : kCoarseXY){
+            for(double theta : kCoarseTheta){
+                for(double turning : kCoarseTurning){
+                    grid.add(new SimGains(xy, xy, theta, turning));
+                }
+            }
+        }
+        return grid;
+    }
+
+    // Fine grid around a center, every gain moves on its own
+    public static List<SimGains> fineGrid(SimGains center){
+        List<SimGains> grid = new ArrayList<>();
+        for(double x : kFineScale){
+            for(double y : kFineScale){
+                for(double theta : kFineScale){
+                    for(double turning : kFineScale){
+                        grid.add(new SimGains(center.xP * x, center.yP * y, center.thetaP * theta, center.turningP * turning));
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static void printTop(String label, List<Candidate> ranked, int count){
+        System.out.println(label);
+        for(int i = 0; i < Math.min(count, ranked.size()); i++){
+            System.out.printf("  %2d. %s%n", i + 1, ranked.get(i));
+        }
+    }
+
+    // Usage: GainTuner [runs per routine] [routine names...]
+    public static void main(String[] args) throws Exception {
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        List<String> names = args.length > 1 ? List.of(args).subList(1, args.length) : AutoSimulator.getRoutineNames();
+
+        List<SimRoutine> routines = new ArrayList<>();
+        for(String name : names){
+            routines.add(AutoSimulator.getRoutine(name));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        GainTuner tuner = new GainTuner(routines, new SimNoise(), runs, pool);
+
+        long start = System.nanoTime();
+        Candidate current = tuner.evaluate(SimGains.fromConstants());
+        System.out.println("Current gains: " + current);
+
+        List<Candidate> coarse = tuner.rank(coarseGrid());
+        printTop("Coarse grid:", coarse, 5);
+
+        List<Candidate> fine = tuner.rank(fineGrid(coarse.get(0).gains));
+        printTop("Fine grid:", fine, 10);
+        pool.shutdown();
+
+        Candidate best = fine.get(0);
+        System.out.printf("Searched %d candidates in %.1f s%n", coarse.size() + fine.size(), (System.nanoTime() - start) / 1e9);
+
+        // Keep what we have unless the search actually found something better
+        if(best.score >= current.score){
+            System.out.println("No improvement over current gains, nothing written");
+            return;
+        }
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put("kPXController", best.gains.xP);
+        values.put("kPYController", best.gains.yP);
+        values.put("kPThetaController", best.gains.thetaP);
+        values.put("kPTurning", best.gains.turningP);
+        TunedGains.save(values, "Written by GainTuner: " + best);
+        System.out.println("Wrote " + TunedGains.getFile());
+    }
+
+}
@@ -0,0 +1,131 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.Random;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.util.FixedSwerveKinematics;
+import frc.robot.util.Constants.DriveConstants;
+
+/* Checks FixedSwerveKinematics against WPILib's SwerveDriveKinematics on random inputs and
+times both. Each timed pass runs after a warmup so the JIT has compiled both paths, and the
+results feed a sink so nothing gets optimized away. Run with ./gradlew benchKinematics. */
+public class KinematicsBenchmark {
+
+    private static final int kSamples = 4096;
+    private static final int kWarmupPasses = 200;
+    private static final int kTimedPasses = 500;
+
+    public static void main(String[] args){
+        SwerveDriveKinematics wpilib = DriveConstants.kDriveKinematics;
+        FixedSwerveKinematics fixed = DriveConstants.kFixedKinematics;
+        double maxSpeed = DriveConstants.kPhysicalMaxSpeedMetersPerSecond;
+        double maxOmega = DriveConstants.kPhysicalMaxAngularSpeedRadiansPerSecond;
+
+        // Random chassis speeds, fixed seed so runs compare
+        Random random = new Random(2106);
+        double[] vx = new double[kSamples], vy = new double[kSamples], omega = new double[kSamples];
+        for(int i = 0; i < kSamples; i++){
+            vx[i] = (random.nextDouble() * 2 - 1) * maxSpeed;
+            vy[i] = (random.nextDouble() * 2 - 1) * maxSpeed;
+            omega[i] = (random.nextDouble() * 2 - 1) * maxOmega;
+        }
+
+        // Numerical agreement, both directions
+        double[] speeds = new double[4], angles = new double[4], chassis = new double[3];
+        double inverseError = 0, forwardError = 0;
+        for(int i = 0; i < kSamples; i++){
+            SwerveModuleState[] states = wpilib.toSwerveModuleStates(new ChassisSpeeds(vx[i], vy[i], omega[i]));
+            fixed.toModuleStates(vx[i], vy[i], omega[i], speeds, angles);
+            for(int m = 0; m < 4; m++){
+                inverseError = Math.max(inverseError, Math.abs(states[m].speedMetersPerSecond - speeds[m]));
+                inverseError = Math.max(inverseError, Math.abs(Math.IEEEremainder(states[m].angle.getRadians() - angles[m], 2 * Math.PI)));
+            }
+
+            ChassisSpeeds reference = wpilib.toChassisSpeeds(states);
+            fixed.toChassisSpeeds(speeds, angles, chassis);
+            forwardError = Math.max(forwardError, Math.abs(reference.vxMetersPerSecond - chassis[0]));
+            forwardError = Math.max(forwardError, Math.abs(reference.vyMetersPerSecond - chassis[1]));
+            forwardError = Math.max(forwardError, Math.abs(reference.omegaRadiansPerSecond - chassis[2]));
+        }
+        System.out.printf("Max difference: inverse %.3e, forward %.3e%n", inverseError, forwardError);
+
+        // Module states to feed forward kinematics
+        SwerveModuleState[][] moduleStates = new SwerveModuleState[kSamples][];
+        double[][] moduleSpeeds = new double[kSamples][4], moduleAngles = new double[kSamples][4];
+        for(int i = 0; i < kSamples; i++){
+            fixed.toModuleStates(vx[i], vy[i], omega[i], moduleSpeeds[i], moduleAngles[i]);
+            moduleStates[i] = new SwerveModuleState[4];
+            for(int m = 0; m < 4; m++){
+                moduleStates[i][m] = new SwerveModuleState(moduleSpeeds[i][m], new Rotation2d(moduleAngles[i][m]));
+            }
+        }
+
+        double sink = 0;
+        for(int pass = 0; pass < kWarmupPasses; pass++){
+            sink += wpilibInverse(wpilib, vx, vy, omega) + fixedInverse(fixed, vx, vy, omega, speeds, angles);
+            sink += wpilibForward(wpilib, moduleStates) + fixedForward(fixed, moduleSpeeds, moduleAngles, chassis);
+        }
+
+        long start = System.nanoTime();
+        for(int pass = 0; pass < kTimedPasses; pass++){sink += wpilibInverse(wpilib, vx, vy, omega);}
+        long wpilibInverseTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int pass = 0; pass < kTimedPasses; pass++){sink += fixedInverse(fixed, vx, vy, omega, speeds, angles);}
+        long fixedInverseTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int pass = 0; pass < kTimedPasses; pass++){sink += wpilibForward(wpilib, moduleStates);}
+        long wpilibForwardTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int pass = 0; pass < kTimedPasses; pass++){sink += fixedForward(fixed, moduleSpeeds, moduleAngles, chassis);}
+        long fixedForwardTime = System.nanoTime() - start;
+
+        double calls = (double) kSamples * kTimedPasses;
+        System.out.printf("Inverse: WPILib %.1f ns/op, fixed %.1f ns/op (%.1fx)%n",
+        wpilibInverseTime / calls, fixedInverseTime / calls, (double) wpilibInverseTime / fixedInverseTime);
+        System.out.printf("Forward: WPILib %.1f ns/op, fixed %.1f ns/op (%.1fx)%n",
+        wpilibForwardTime / calls, fixedForwardTime / calls, (double) wpilibForwardTime / fixedForwardTime);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static double wpilibInverse(SwerveDriveKinematics kinematics, double[] vx, double[] vy, double[] omega){
+        double sum = 0;
+        for(int i = 0; i < vx.length; i++){
+            sum += kinematics.toSwerveModuleStates(new ChassisSpeeds(vx[i], vy[i], omega[i]))[0].speedMetersPerSecond;
+        }
+        return sum;
+    }
+
+    private static double fixedInverse(FixedSwerveKinematics kinematics, double[] vx, double[] vy, double[] omega,
+    double[] speeds, double[] angles){
+        double sum = 0;
+        for(int i = 0; i < vx.length; i++){
+            kinematics.toModuleStates(vx[i], vy[i], omega[i], speeds, angles);
+            sum += speeds[0];
+        }
+        return sum;
+    }
+
+    private static double wpilibForward(SwerveDriveKinematics kinematics, SwerveModuleState[][] states){
+        double sum = 0;
+        for(int i = 0; i < states.length; i++){
+            sum += kinematics.toChassisSpeeds(states[i]).vxMetersPerSecond;
+        }
+        return sum;
+    }
+
+    private static double fixedForward(FixedSwerveKinematics kinematics, double[][] speeds, double[][] angles, double[] out){
+        double sum = 0;
+        for(int i = 0; i < speeds.length; i++){
+            kinematics.toChassisSpeeds(speeds[i], angles[i], out);
+            sum += out[0];
+        }
+        return sum;
+    }
+
+}
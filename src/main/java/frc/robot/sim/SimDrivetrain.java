@@ -0,0 +1,217 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.SplittableRandom;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.ModuleConstants;
+
+/* Headless swerve drivetrain for offline runs. Each instance is fully self contained so
+many can run on different threads at once. It keeps the true robot pose separate from
+what odometry thinks the pose is, and models command latency, module steering speed,
+drive acceleration, wheel slip and sensor noise. Nothing in here touches HAL. */
+public class SimDrivetrain {
+
+    // Module positions from robot center, front left, front right, back left, back right
+    public static final double[] kModuleX = {
+        DriveConstants.kWheelBase / 2, DriveConstants.kWheelBase / 2,
+        -DriveConstants.kWheelBase / 2, -DriveConstants.kWheelBase / 2};
+    public static final double[] kModuleY = {
+        DriveConstants.kTrackWidth / 2, -DriveConstants.kTrackWidth / 2,
+        DriveConstants.kTrackWidth / 2, -DriveConstants.kTrackWidth / 2};
+
+    private static final int kModules = 4;
+
+    private final SimNoise noise;
+    private final SplittableRandom random;
+
+    // Steering P gain, same meaning as ModuleConstants.kPTurning (motor output per radian)
+    private final double turningP;
+
+    // True pose of the robot
+    private double x, y, theta;
+
+    // Odometry pose, what the robot code would see
+    private double estX, estY, estTheta;
+
+    // Gyro zero offset from the starting error, and slow drift
+    private double gyroOffset;
+    private double gyroDrift;
+
+    // Module angle and wheel speed
+    private final double[] moduleAngle = new double[kModules];
+    private final double[] wheelSpeed = new double[kModules];
+
+    // Command latency queue, robot relative chassis speeds
+    private final double[] queueVx, queueVy, queueOmega;
+    private int queueHead;
+
+    // Scratch space for module targets
+    private final double[] targetSpeed = new double[kModules];
+    private final double[] targetAngle = new double[kModules];
+
+    // Class constructor
+    public SimDrivetrain(SimNoise noise, long seed, double turningP){
+        this.noise = noise;
+        this.random = new SplittableRandom(seed);
+        this.turningP = turningP;
+
+        // Pick this run's latency
+        int latency = Math.max(0, noise.minLatencyCycles + random.nextInt(Math.max(1, noise.maxLatencyCycles - noise.minLatencyCycles + 1)));
+        queueVx = new double[latency + 1];
+        queueVy = new double[queueVx.length];
+        queueOmega = new double[queueVx.length];
+    }
+
+    // Class constructor with the robot's own steering gain
+    public SimDrivetrain(SimNoise noise, long seed){
+        this(noise, seed, ModuleConstants.kPTurning);
+    }
+
+    // Place the robot where odometry thinks it is, plus random starting error
+    public void reset(double startX, double startY, double startTheta){
+        estX = startX;
+        estY = startY;
+        estTheta = startTheta;
+        x = startX + gaussian(noise.startPositionStdMeters);
+        y = startY + gaussian(noise.startPositionStdMeters);
+        theta = startTheta + gaussian(noise.startHeadingStdRad);
+        gyroOffset = startTheta - theta;
+        gyroDrift = 0;
+        for(int i = 0; i < kModules; i++){
+            moduleAngle[i] = 0;
+            wheelSpeed[i] = 0;
+        }
+    }
+
+    // Advance the simulation by dt with a robot relative chassis speed command
+    public void step(double vx, double vy, double omega, double dt){
+
+        // Push the new command in and pull out the one that is actually reaching the motors
+        queueVx[queueHead] = vx;
+        queueVy[queueHead] = vy;
+        queueOmega[queueHead] = omega;
+        queueHead = (queueHead + 1) % queueVx.length;
+        double cmdVx = queueVx[queueHead];
+        double cmdVy = queueVy[queueHead];
+        double cmdOmega = queueOmega[queueHead];
+
+        // Inverse kinematics and desaturate
+        double maxSpeed = 0;
+        for(int i = 0; i < kModules; i++){
+            double mvx = cmdVx - cmdOmega * kModuleY[i];
+            double mvy = cmdVy + cmdOmega * kModuleX[i];
+            targetSpeed[i] = Math.hypot(mvx, mvy);
+            targetAngle[i] = targetSpeed[i] > 1e-6 ? Math.atan2(mvy, mvx) : moduleAngle[i];
+            maxSpeed = Math.max(maxSpeed, targetSpeed[i]);
+        }
+        double desaturate = maxSpeed > DriveConstants.kPhysicalMaxSpeedMetersPerSecond
+            ? DriveConstants.kPhysicalMaxSpeedMetersPerSecond / maxSpeed : 1;
+
+        // Move each module towards its target, then work out chassis motion from the wheels
+        double wheelVx = 0, wheelVy = 0;
+        double trueVx = 0, trueVy = 0, trueOmega = 0;
+        double radiusSq = 0;
+        boolean slipEvent = random.nextDouble() < noise.slipEventChance;
+        int slipModule = random.nextInt(kModules);
+
+        for(int i = 0; i < kModules; i++){
+
+            // Optimize so the module never turns more than 90*
+            double speed = targetSpeed[i] * desaturate;
+            double error = Math.IEEEremainder(targetAngle[i] - moduleAngle[i], 2 * Math.PI);
+            if(Math.abs(error) > Math.PI / 2){
+                speed = -speed;
+                error = Math.IEEEremainder(error + Math.PI, 2 * Math.PI);
+            }
+
+            // Steering, P output saturates at full motor output
+            double steerOutput = Math.max(-1, Math.min(1, turningP * error));
+            double steerStep = steerOutput * ModuleConstants.kMaxSteerRateRadPerSec * dt;
+            if(Math.abs(steerStep) > Math.abs(error)){
+                steerStep = error;
+            }
+            moduleAngle[i] += steerStep;
+
+            // Drive is open loop like SwerveModule, acceleration limited
+            double maxStep = ModuleConstants.kMaxDriveAccelerationMetersPerSecondSquared * dt;
+            wheelSpeed[i] += Math.max(-maxStep, Math.min(maxStep, speed - wheelSpeed[i]));
+
+            // What the encoders report
+            double measured = wheelSpeed[i] + gaussian(noise.encoderVelocityStdMetersPerSec);
+            double cos = Math.cos(moduleAngle[i]);
+            double sin = Math.sin(moduleAngle[i]);
+            wheelVx += measured * cos;
+            wheelVy += measured * sin;
+
+            // What the carpet sees after slip
+            double slip = Math.min(1, Math.abs(gaussian(noise.slipStd)));
+            if(slipEvent && i == slipModule){
+                slip = Math.max(slip, noise.slipEventFraction);
+            }
+            double actual = wheelSpeed[i] * (1 - slip);
+            trueVx += actual * cos;
+            trueVy += actual * sin;
+            trueOmega += -kModuleY[i] * actual * cos + kModuleX[i] * actual * sin;
+
+            radiusSq += kModuleX[i] * kModuleX[i] + kModuleY[i] * kModuleY[i];
+        }
+        wheelVx /= kModules;
+        wheelVy /= kModules;
+        trueVx /= kModules;
+        trueVy /= kModules;
+        trueOmega /= radiusSq;
+
+        // Integrate the true pose
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        x += (trueVx * cos - trueVy * sin) * dt;
+        y += (trueVx * sin + trueVy * cos) * dt;
+        theta += trueOmega * dt;
+
+        // Integrate odometry with the noisy gyro heading
+        gyroDrift += gaussian(noise.gyroDriftStdRad);
+        double gyroTheta = theta + gyroOffset + gyroDrift + gaussian(noise.gyroStdRad);
+        double estCos = Math.cos(gyroTheta);
+        double estSin = Math.sin(gyroTheta);
+        estX += (wheelVx * estCos - wheelVy * estSin) * dt;
+        estY += (wheelVx * estSin + wheelVy * estCos) * dt;
+        estTheta = gyroTheta;
+    }
+
+    // Get methods for the true pose
+    public double getX(){return x;}
+
+    public double getY(){return y;}
+
+    public double getTheta(){return theta;}
+
+    // Get methods for the odometry pose
+    public double getEstimatedX(){return estX;}
+
+    public double getEstimatedY(){return estY;}
+
+    public double getEstimatedTheta(){return estTheta;}
+
+    // Fastest wheel speed, used to tell when the robot has stopped
+    public double getMaxWheelSpeed(){
+        double max = 0;
+        for(int i = 0; i < kModules; i++){
+            max = Math.max(max, Math.abs(wheelSpeed[i]));
+        }
+        return max;
+    }
+
+    // Latency of this run in loop cycles
+    public int getLatencyCycles(){return queueVx.length - 1;}
+
+    private double gaussian(double std){
+        if(std == 0){
+            return 0;
+        }
+        // Box-Muller, SplittableRandom has no nextGaussian on Java 11
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return std * Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+}
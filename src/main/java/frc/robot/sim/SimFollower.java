@@ -0,0 +1,49 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Same control law as HolonomicDriveController with P only x, y and theta loops, written
+out with primitives so thousands of runs can share nothing and allocate nothing. */
+public class SimFollower {
+
+    // Indexes into the output array
+    public static final int kVx = 0;
+    public static final int kVy = 1;
+    public static final int kOmega = 2;
+
+    private final SimGains gains;
+
+    // Class constructor
+    public SimFollower(SimGains gains){
+        this.gains = gains;
+    }
+
+    // Robot relative chassis speeds into out for a reference state and the current pose
+    public void calculate(Trajectory.State reference, double desiredHeading,
+    double x, double y, double theta, double[] out){
+
+        double refX = reference.poseMeters.getX();
+        double refY = reference.poseMeters.getY();
+        double refHeading = reference.poseMeters.getRotation().getRadians();
+        double refVelocity = reference.velocityMetersPerSecond;
+
+        // Feedforward along the path plus position correction
+        double fieldVx = refVelocity * Math.cos(refHeading) + gains.xP * (refX - x);
+        double fieldVy = refVelocity * Math.sin(refHeading) + gains.yP * (refY - y);
+
+        // Heading correction, capped like the profiled theta controller
+        double omega = gains.thetaP * Math.IEEEremainder(desiredHeading - theta, 2 * Math.PI);
+        omega = Math.max(-AutoConstants.kMaxAngularSpeedRadiansPerSecond,
+            Math.min(AutoConstants.kMaxAngularSpeedRadiansPerSecond, omega));
+
+        // Field relative to robot relative
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        out[kVx] = fieldVx * cos + fieldVy * sin;
+        out[kVy] = -fieldVx * sin + fieldVy * cos;
+        out[kOmega] = omega;
+    }
+
+}
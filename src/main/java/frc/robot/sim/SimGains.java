@@ -0,0 +1,34 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import frc.robot.util.Constants.AutoConstants;
+import frc.robot.util.Constants.ModuleConstants;
+
+// Controller gains used by a simulated run
+public class SimGains {
+
+    public final double xP;
+    public final double yP;
+    public final double thetaP;
+    public final double turningP;
+
+    // Class constructor
+    public SimGains(double xP, double yP, double thetaP, double turningP){
+        this.xP = xP;
+        this.yP = yP;
+        this.thetaP = thetaP;
+        this.turningP = turningP;
+    }
+
+    // Gains the robot is currently running
+    public static SimGains fromConstants(){
+        return new SimGains(AutoConstants.kPXController, AutoConstants.kPYController,
+            AutoConstants.kPThetaController, ModuleConstants.kPTurning);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("xP=%.3f yP=%.3f thetaP=%.3f turningP=%.3f", xP, yP, thetaP, turningP);
+    }
+
+}
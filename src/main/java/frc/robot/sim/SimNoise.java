@@ -0,0 +1,45 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+
+// Amounts of randomness injected into each simulated run
+public class SimNoise {
+
+    // Standard deviation of the starting pose error
+    public double startPositionStdMeters = 0.05;
+    public double startHeadingStdRad = Math.toRadians(2);
+
+    // Standard deviation of per step sensor noise
+    public double encoderVelocityStdMetersPerSec = 0.02;
+    public double gyroStdRad = Math.toRadians(0.2);
+
+    // Gyro drift random walk per step
+    public double gyroDriftStdRad = Math.toRadians(0.01);
+
+    // Wheel slip, fraction of wheel motion lost per step (absolute value of a gaussian)
+    public double slipStd = 0.03;
+
+    // Chance per step that one wheel slips badly, and how much it loses when it does
+    public double slipEventChance = 0.002;
+    public double slipEventFraction = 0.5;
+
+    // Command latency drawn uniformly per run, in whole loop cycles
+    public int minLatencyCycles = 1;
+    public int maxLatencyCycles = 3;
+
+    // No noise at all, handy for tuning against a perfect robot
+    public static SimNoise none(){
+        SimNoise noise = new SimNoise();
+        noise.startPositionStdMeters = 0;
+        noise.startHeadingStdRad = 0;
+        noise.encoderVelocityStdMetersPerSec = 0;
+        noise.gyroStdRad = 0;
+        noise.gyroDriftStdRad = 0;
+        noise.slipStd = 0;
+        noise.slipEventChance = 0;
+        noise.minLatencyCycles = 1;
+        noise.maxLatencyCycles = 1;
+        return noise;
+    }
+
+}
@@ -0,0 +1,33 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+
+// Outcome of one simulated auto run
+public class SimResult {
+
+    // Distance and heading between the true final pose and the last reference pose
+    public final double finalPositionError;
+    public final double finalHeadingError;
+
+    // True pose vs reference pose over the whole run
+    public final double rmsTrackingError;
+    public final double maxTrackingError;
+
+    // Time from start until the robot came to rest
+    public final double completionTime;
+
+    // Time from start until tracking error stayed inside the settle tolerance
+    public final double settleTime;
+
+    // Class constructor
+    public SimResult(double finalPositionError, double finalHeadingError, double rmsTrackingError,
+    double maxTrackingError, double completionTime, double settleTime){
+        this.finalPositionError = finalPositionError;
+        this.finalHeadingError = finalHeadingError;
+        this.rmsTrackingError = rmsTrackingError;
+        this.maxTrackingError = maxTrackingError;
+        this.completionTime = completionTime;
+        this.settleTime = settleTime;
+    }
+
+}
@@ -0,0 +1,60 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.List;
+import java.util.Map;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.EventMarker;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/* An auto routine as the simulator sees it, the trajectories it drives in order. Commands
+that hold the robot still can be declared too: pauses are the seconds spent after each
+segment (waits and the like), and marker seconds say how long the command behind a
+PathPlanner marker runs, since the path command doesn't finish until its marker commands do. */
+public class SimRoutine {
+
+    private final String name;
+    private final List<Trajectory> segments;
+    private final double[] pauses;
+    private final Map<String, Double> markerSeconds;
+
+    // Class constructor
+    public SimRoutine(String name, List<? extends Trajectory> segments, double[] pauses, Map<String, Double> markerSeconds){
+        if(pauses.length != segments.size()){
+            throw new IllegalArgumentException("Routine " + name + " needs one pause per segment");
+        }
+        this.name = name;
+        this.segments = List.copyOf(segments);
+        this.pauses = pauses.clone();
+        this.markerSeconds = Map.copyOf(markerSeconds);
+    }
+
+    public SimRoutine(String name, List<? extends Trajectory> segments){
+        this(name, segments, new double[segments.size()], Map.of());
+    }
+
+    public SimRoutine(String name, Trajectory... segments){
+        this(name, List.of(segments));
+    }
+
+    // Seconds the robot sits still after a segment, its pause plus any marker command still running when the path ends
+    public double getHoldSeconds(int segment){
+        Trajectory trajectory = segments.get(segment);
+        double overrun = 0;
+        if(trajectory instanceof PathPlannerTrajectory){
+            for(EventMarker marker : ((PathPlannerTrajectory) trajectory).getMarkers()){
+                for(String command : marker.names){
+                    double end = marker.timeSeconds + markerSeconds.getOrDefault(command, 0.0);
+                    overrun = Math.max(overrun, end - trajectory.getTotalTimeSeconds());
+                }
+            }
+        }
+        return overrun + pauses[segment];
+    }
+
+    // Get methods
+    public String getName(){return name;}
+
+    public List<Trajectory> getSegments(){return segments;}
+
+}
@@ -0,0 +1,91 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.sim;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.auto.manuals.Forward2M;
+import frc.robot.auto.routines.TestRoutine;
+import frc.robot.util.CompactTrajectory;
+import frc.robot.util.HolonomicHeading;
+import frc.robot.util.TrajectoryRetimer;
+
+/* Compares the heap a dense trajectory holds on to with its CompactTrajectory copy, and
+checks the compact copy samples the same. Heap is measured by keeping many copies alive and
+reading used memory after a GC, so the numbers are estimates but they're steady from run to
+run. Run with ./gradlew benchTrajectoryMemory. */
+public class TrajectoryMemoryBenchmark {
+
+    private static final int kCopies = 200;
+    private static final double kSampleStepSeconds = 0.001;
+
+    public static void main(String[] args){
+        Map<String, Supplier<Trajectory>> trajectories = new LinkedHashMap<>();
+        trajectories.put("forward2M", Forward2M::getTrajectory);
+        trajectories.put("forward2MRetimed", () -> TrajectoryRetimer.retime(Forward2M.getTrajectory()));
+        trajectories.put("pathOne", () -> TestRoutine.loadPaths().get(0));
+        trajectories.put("pathTwo", () -> TestRoutine.loadPaths().get(1));
+
+        for(Map.Entry<String, Supplier<Trajectory>> entry : trajectories.entrySet()){
+            Trajectory dense = entry.getValue().get();
+            CompactTrajectory compact = CompactTrajectory.of(dense);
+
+            // Worst difference between the two over a fine time grid
+            double positionError = 0, velocityError = 0, headingError = 0;
+            for(double t = 0; t <= dense.getTotalTimeSeconds(); t += kSampleStepSeconds){
+                Trajectory.State expected = dense.sample(t);
+                Trajectory.State actual = compact.sample(t);
+                positionError = Math.max(positionError, expected.poseMeters.getTranslation().getDistance(actual.poseMeters.getTranslation()));
+                velocityError = Math.max(velocityError, Math.abs(expected.velocityMetersPerSecond - actual.velocityMetersPerSecond));
+                headingError = Math.max(headingError, Math.abs(Math.IEEEremainder(
+                    HolonomicHeading.of(dense, expected) - compact.getHeading(t), 2 * Math.PI)));
+            }
+
+            // Retained heap per copy, dense copies get their own states like separately generated paths would
+            List<Object> kept = new ArrayList<>(kCopies);
+            long before = usedHeap();
+            for(int i = 0; i < kCopies; i++){
+                kept.add(copy(dense));
+            }
+            long denseBytes = (usedHeap() - before) / kCopies;
+            kept.clear();
+
+            before = usedHeap();
+            for(int i = 0; i < kCopies; i++){
+                kept.add(CompactTrajectory.of(dense));
+            }
+            long compactBytes = (usedHeap() - before) / kCopies;
+            kept.clear();
+
+            System.out.printf("%s: %d states -> %d knots, %d B -> %d B per trajectory (%.1fx)%n", entry.getKey(),
+            dense.getStates().size(), compact.getKnotCount(), denseBytes, compactBytes, (double) denseBytes / Math.max(compactBytes, 1));
+            System.out.printf("  max difference: position %.2e m, velocity %.2e m/s, heading %.2e rad%n",
+            positionError, velocityError, headingError);
+        }
+    }
+
+    // Deep copy with fresh pose objects
+    private static Trajectory copy(Trajectory trajectory){
+        List<Trajectory.State> states = new ArrayList<>(trajectory.getStates().size());
+        for(Trajectory.State state : trajectory.getStates()){
+            states.add(new Trajectory.State(state.timeSeconds, state.velocityMetersPerSecond, state.accelerationMetersPerSecondSq,
+            new Pose2d(state.poseMeters.getX(), state.poseMeters.getY(), new Rotation2d(state.poseMeters.getRotation().getRadians())),
+            state.curvatureRadPerMeter));
+        }
+        return new Trajectory(states);
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -24,6 +24,7 @@ import com.revrobotics.REVLibError;
 import com.revrobotics.RelativeEncoder;
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
@@ -56,6 +57,9 @@ public class SwerveModule extends SubsystemBase {
   private final boolean absoluteEncoderReversed;
   private final double absoluteEncoderOffsetRad;
 
+  // Absolute angle from the last time it was read, refreshed every odometry cycle so telemetry never reads the encoder itself
+  private double lastAbsoluteEncoderRad;
+
 <<<<<<< HEAD
   private SparkMaxPIDController mTurnController;
 
@@ -204,9 +208,32 @@ public class SwerveModule extends SubsystemBase {
       return turningEncoder.getVelocity();
     }
 
+  // Absolute angle in radians, reported to the driver station
+  public double getAbsoluteEncoderRad(){
+
+    // Read the angle, this also updates the cached one
+    double angle = readAbsoluteEncoderRad();
+    
+    // Report setting to driver station
+<<<<<<< HEAD
+    //DriverStation.reportError(moduleName + " called getAbsoluteEncoderRad: " + angle + "  " + absoluteEncoderOffsetRad, true);
+=======
+    DriverStation.reportError(moduleName + " called getAbsoluteEncoderRad: " + angle + "  " + absoluteEncoderOffsetRad, true);
+>>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
+
+    // Return angle in radians for neo turning motor encoder
+    return angle;
+    
+  }
+
+  // Read the absolute angle into the cached value without reporting it, called every odometry cycle
+  public void refreshAbsoluteEncoderRad(){
+    readAbsoluteEncoderRad();
+  }
+
   /* Convert absolute value of the encoder to radians and then subtract the radian offset
   then check if the encoder is reversed.*/
-  public double getAbsoluteEncoderRad(){
+  private double readAbsoluteEncoderRad(){
 
     //  Make angle variable
     double angle;
@@ -230,17 +257,15 @@ public class SwerveModule extends SubsystemBase {
 
     // Make negative if set
     angle *= ( absoluteEncoderReversed ? -1.0 : 1.0);
-    
-    // Report setting to driver station
-<<<<<<< HEAD
-    //DriverStation.reportError(moduleName + " called getAbsoluteEncoderRad: " + angle + "  " + absoluteEncoderOffsetRad, true);
-=======
-    DriverStation.reportError(moduleName + " called getAbsoluteEncoderRad: " + angle + "  " + absoluteEncoderOffsetRad, true);
->>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
 
-    // Return angle in radians for neo turning motor encoder
+    // Keep it for telemetry
+    lastAbsoluteEncoderRad = angle;
     return angle;
-    
+  }
+
+  // Absolute angle from the last time it was read, doesn't touch the encoder
+  public double getLastAbsoluteEncoderRad(){
+    return lastAbsoluteEncoderRad;
   }
 
   // Set turning encoder to match absolute encoder value with gear offsets applied
@@ -333,6 +358,38 @@ public class SwerveModule extends SubsystemBase {
     turningMotor.set(0);
   }
 
+  // Drive motor current draw in amps
+  public double getDriveCurrent() {
+    return driveMotor.getOutputCurrent();
+  }
+
+  // Change smart current limits, this is a CAN config write so only call it when the limit changes
+  public void setCurrentLimits(int driveLimitAmps, int turningLimitAmps) {
+    driveMotor.setSmartCurrentLimit(driveLimitAmps);
+    turningMotor.setSmartCurrentLimit(turningLimitAmps);
+  }
+
+  // Drive at a raw voltage while holding the wheel at an angle, used for characterization
+  public void setDriveVoltage(double volts, double angleRad) {
+    driveMotor.setVoltage(volts);
+    turningMotor.set(turningPidController.calculate(getTurningPosition(), angleRad));
+  }
+
+  // Spin the turning motor at a raw voltage with the drive motor stopped
+  public void setTurningVoltage(double volts) {
+    driveMotor.set(0);
+    turningMotor.setVoltage(volts);
+  }
+
+  // Send encoder status frames faster so high rate logging sees fresh data, default is 20ms
+  public void setFastStatusFrames(boolean fast) {
+    int periodMs = fast ? ModuleConstants.kFastStatusFramePeriodMs : 20;
+    driveMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periodMs);
+    driveMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periodMs);
+    turningMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periodMs);
+    turningMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periodMs);
+  }
+
 <<<<<<< HEAD
 
   public void simulationPeriodic(){
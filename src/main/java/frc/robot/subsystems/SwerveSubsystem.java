@@ -10,23 +10,32 @@ import com.revrobotics.CANSparkMax;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 <<<<<<< HEAD
 import edu.wpi.first.wpilibj.CAN;
 =======
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.Joystick;
 import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.ChassisVelocityEstimator;
+import frc.robot.util.CurrentBudget;
+import frc.robot.util.ModuleTelemetry;
 import frc.robot.util.Monitor;
+import frc.robot.util.PoseHistory;
+import frc.robot.util.RateScheduler;
+import frc.robot.util.SwerveOdometry;
 import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.RateConstants;
 
-public class SwerveSubsystem extends SubsystemBase {
+public class SwerveSubsystem extends SubsystemBase implements RateScheduler.Participant {
 
   // Create 4 swerve modules with attributes from constants
   private final SwerveModule frontLeft = new SwerveModule(
@@ -73,13 +82,42 @@ public class SwerveSubsystem extends SubsystemBase {
 
   // Create the navX using roboRIO expansion port
   private AHRS gyro = new AHRS(SPI.Port.kMXP);
+  private volatile int headingResets;
 
   // Create a robot monitor
   private final Monitor monitor = new Monitor();
 
+  // Create current budget shared by all four modules
+  private final CurrentBudget currentBudget = new CurrentBudget(4);
+  private final double[] driveCurrents = new double[4];
+
 
   // Create odometer for error correction
-  private final SwerveDriveOdometry odometer = new SwerveDriveOdometry(DriveConstants.kDriveKinematics, new Rotation2d(0));
+  private final SwerveOdometry odometer = new SwerveOdometry(DriveConstants.kWheelBase, DriveConstants.kTrackWidth);
+  private final double[] drivePositions = new double[4];
+  private final double[] turningPositions = new double[4];
+
+  // IMU fused chassis velocity, robot relative
+  private final ChassisVelocityEstimator velocityEstimator = new ChassisVelocityEstimator();
+  private final double[] driveVelocities = new double[4];
+  private final double[] wheelSpeeds = new double[3];
+  private final NetworkTableEntry chassisSpeedsEntry = NetworkTableInstance.getDefault().getTable("Swerve").getEntry("Chassis Speeds");
+  private final double[] chassisSpeeds = new double[3];
+  private final NetworkTableEntry imuAccelEntry = NetworkTableInstance.getDefault().getTable("Swerve").getEntry("IMU Accel");
+  private final double[] imuAccel = new double[2];
+  private double lastOdometryTime;
+
+  // Packed module telemetry, one NetworkTables entry for all four modules
+  private final ModuleTelemetry moduleTelemetry = new ModuleTelemetry("Swerve", "Modules", 4);
+  private final double[] desiredSpeeds = new double[4];
+  private final double[] desiredAngles = new double[4];
+
+  // Reused for module states set from primitive arrays
+  private final SwerveModuleState[] commandedStates = {
+    new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()};
+
+  // Timestamped odometry poses for latency compensated lookups
+  private final PoseHistory poseHistory = new PoseHistory(DriveConstants.kPoseHistoryCapacity);
 
   // Create empty right joystick for live speed control
   Joystick rightJoystick;
@@ -103,11 +141,27 @@ public class SwerveSubsystem extends SubsystemBase {
   // Reset gyro heading 
   public void zeroHeading() {
     gyro.reset();
+    headingResets++;
+  }
+
+  // Counts heading resets so heading hold can drop a stale goal
+  public int getHeadingResets(){
+    return headingResets;
   }
 
-  // Return heading in -180* to 180* format
+  // Heading in radians, same direction as getRotation2d
+  public double getHeadingRadians(){
+    return Math.toRadians(getHeading());
+  }
+
+  // Gyro yaw rate in radians per second, same direction as getHeadingRadians
+  public double getYawRate(){
+    return Math.toRadians(gyro.getRate() * DriveConstants.kGyroSign);
+  }
+
+  // Return heading in -180* to 180* format, counterclockwise positive
   public double getHeading(){
-    return Math.IEEEremainder(gyro.getAngle(), 360);
+    return Math.IEEEremainder(gyro.getAngle() * DriveConstants.kGyroSign, 360);
   }
 
   // Return heading in Rotation2d format
@@ -127,6 +181,18 @@ public class SwerveSubsystem extends SubsystemBase {
 
     // Make sure robot rotation is all ways possible by changing other module roation speeds
     SwerveDriveKinematics.desaturateWheelSpeeds(desiredStates, DriveConstants.kPhysicalMaxSpeedMetersPerSecond);
+
+    // Scale all drive speeds together to stay inside the current budget
+    double driveScale = currentBudget.getDriveScale();
+    for(SwerveModuleState state : desiredStates){
+      state.speedMetersPerSecond *= driveScale;
+    }
+
+    // Remember commanded states for telemetry
+    for(int i = 0; i < 4; i++){
+      desiredSpeeds[i] = desiredStates[i].speedMetersPerSecond;
+      desiredAngles[i] = desiredStates[i].angle.getRadians();
+    }
 <<<<<<< HEAD
     frontLeft.setDesiredStateFromAbs(desiredStates[0]);
     frontRight.setDesiredStateFromAbs(desiredStates[1]);
@@ -140,14 +206,98 @@ public class SwerveSubsystem extends SubsystemBase {
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
 }
 
+  // Set module states from speeds (m/s) and angles (rad) in module order. The state objects are
+  // reused, but Rotation2d can't be changed so each angle still needs a new one
+  public void setModuleStates(double[] speeds, double[] angles) {
+    for(int i = 0; i < 4; i++){
+      commandedStates[i].speedMetersPerSecond = speeds[i];
+      commandedStates[i].angle = new Rotation2d(angles[i]);
+    }
+    setModuleStates(commandedStates);
+  }
+
   // Return robot position caculated buy odometer
   public Pose2d getPose(){
-    return odometer.getPoseMeters();
+    return new Pose2d(odometer.getX(), odometer.getY(), new Rotation2d(odometer.getTheta()));
+  }
+
+  // Current module angles in radians, module order
+  public void getModuleAngles(double[] out){
+    out[0] = frontLeft.getTurningPosition();
+    out[1] = frontRight.getTurningPosition();
+    out[2] = backLeft.getTurningPosition();
+    out[3] = backRight.getTurningPosition();
+  }
+
+  // Get the odometer for slip and per step data
+  public SwerveOdometry getOdometer(){
+    return odometer;
+  }
+
+  // Get the IMU fused robot relative chassis speeds and slip state
+  public ChassisVelocityEstimator getVelocityEstimator(){
+    return velocityEstimator;
   }
 
   // Reset odometer to new location
   public void resetOdometry(Pose2d pose){
-    odometer.resetPosition(pose, getRotation2d());
+    sampleModulePositions();
+    odometer.resetPosition(pose.getX(), pose.getY(), pose.getRotation().getRadians(), getHeadingRadians(), drivePositions);
+    poseHistory.clear();
+  }
+
+  /* Write where the robot was at a past FPGA timestamp into out as {x, y, theta},
+  see PoseHistory for the layout. Returns false before the first odometry update. */
+  public boolean getPoseAt(double timestamp, double[] out){
+    return poseHistory.sample(timestamp, out);
+  }
+
+  // Same as above but as a Pose2d, allocates so keep it out of tight loops
+  public Pose2d getPoseAt(double timestamp){
+    double[] out = new double[3];
+    if(!poseHistory.sample(timestamp, out)){
+      return getPose();
+    }
+    return new Pose2d(out[PoseHistory.kX], out[PoseHistory.kY], new Rotation2d(out[PoseHistory.kTheta]));
+  }
+
+  // Characterization, drive all modules at a raw voltage with the wheels held straight
+  public void setCharacterizationVoltage(double volts, boolean turning){
+    if(turning){
+      frontLeft.setTurningVoltage(volts);
+      frontRight.setTurningVoltage(volts);
+      backLeft.setTurningVoltage(volts);
+      backRight.setTurningVoltage(volts);
+    }
+    else{
+      frontLeft.setDriveVoltage(volts, 0);
+      frontRight.setDriveVoltage(volts, 0);
+      backLeft.setDriveVoltage(volts, 0);
+      backRight.setDriveVoltage(volts, 0);
+    }
+  }
+
+  // Average position and velocity over all modules for characterization
+  public double getCharacterizationPosition(boolean turning){
+    if(turning){
+      return (frontLeft.getTurningPosition() + frontRight.getTurningPosition() + backLeft.getTurningPosition() + backRight.getTurningPosition()) / 4;
+    }
+    return (frontLeft.getDrivePosition() + frontRight.getDrivePosition() + backLeft.getDrivePosition() + backRight.getDrivePosition()) / 4;
+  }
+
+  public double getCharacterizationVelocity(boolean turning){
+    if(turning){
+      return (frontLeft.getTurningVelocity() + frontRight.getTurningVelocity() + backLeft.getTurningVelocity() + backRight.getTurningVelocity()) / 4;
+    }
+    return (frontLeft.getDriveVelocity() + frontRight.getDriveVelocity() + backLeft.getDriveVelocity() + backRight.getDriveVelocity()) / 4;
+  }
+
+  // Faster encoder updates for high rate logging
+  public void setFastStatusFrames(boolean fast){
+    frontLeft.setFastStatusFrames(fast);
+    frontRight.setFastStatusFrames(fast);
+    backLeft.setFastStatusFrames(fast);
+    backRight.setFastStatusFrames(fast);
   }
 
   // Reset all swerve module encoders
@@ -164,27 +314,132 @@ public class SwerveSubsystem extends SubsystemBase {
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
   
 
-  // Periodic looooooop
+  // Set up odometry, telemetry and monitor rate groups
   @Override
-  public void periodic(){
+  public void registerRates(RateScheduler scheduler){
+    scheduler.schedule(this::updateOdometry, RateConstants.kOdometryPeriodSeconds);
+    scheduler.schedule(this::updateCurrentBudget, RateConstants.kCurrentBudgetPeriodSeconds);
+    scheduler.scheduleSpread(this::updateTelemetry, RateConstants.kTelemetryPeriodSeconds);
+    scheduler.scheduleSpread(this::updateMonitor, RateConstants.kMonitorPeriodSeconds);
+  }
 
-    // Periodicly update odometer for it to caculate position
-    odometer.update(getRotation2d(), frontLeft.getState(), frontRight.getState(), backLeft.getState(), backRight.getState());
+  // Periodicly update odometer for it to caculate position
+  public void updateOdometry(){
+    double now = Timer.getFPGATimestamp();
+    double dt = lastOdometryTime > 0 ? Math.min(now - lastOdometryTime, DriveConstants.kMaxEstimatorStepSeconds) : RateConstants.kOdometryPeriodSeconds;
+    lastOdometryTime = now;
+    sampleModulePositions();
+
+    // Fuse wheel velocity with the IMU, accelerations come in g
+    DriveConstants.kFixedKinematics.toChassisSpeeds(driveVelocities, turningPositions, wheelSpeeds);
+    double accelX = gyro.getWorldLinearAccelX() * DriveConstants.kGravity * DriveConstants.kImuAccelXSign;
+    double accelY = gyro.getWorldLinearAccelY() * DriveConstants.kGravity * DriveConstants.kImuAccelYSign;
+    imuAccel[0] = accelX;
+    imuAccel[1] = accelY;
+    velocityEstimator.update(wheelSpeeds[0], wheelSpeeds[1], accelX, accelY, getYawRate(), dt);
+
+    // Odometry falls back on the fused velocity if all the wheels are slipping
+    odometer.update(getHeadingRadians(), drivePositions, turningPositions,
+      velocityEstimator.getVx() * dt, velocityEstimator.getVy() * dt, velocityEstimator.isSlipping());
+
+    // Save pose for lookups by time
+    poseHistory.add(Timer.getFPGATimestamp(), odometer.getX(), odometer.getY(), odometer.getTheta());
+  }
+
+  // Read every module's drive distance and angle into the reused arrays
+  private void sampleModulePositions(){
+    frontLeft.refreshAbsoluteEncoderRad();
+    frontRight.refreshAbsoluteEncoderRad();
+    backLeft.refreshAbsoluteEncoderRad();
+    backRight.refreshAbsoluteEncoderRad();
+
+    drivePositions[0] = frontLeft.getDrivePosition();
+    drivePositions[1] = frontRight.getDrivePosition();
+    drivePositions[2] = backLeft.getDrivePosition();
+    drivePositions[3] = backRight.getDrivePosition();
+
+    turningPositions[0] = frontLeft.getTurningPosition();
+    turningPositions[1] = frontRight.getTurningPosition();
+    turningPositions[2] = backLeft.getTurningPosition();
+    turningPositions[3] = backRight.getTurningPosition();
+
+    driveVelocities[0] = frontLeft.getDriveVelocity();
+    driveVelocities[1] = frontRight.getDriveVelocity();
+    driveVelocities[2] = backLeft.getDriveVelocity();
+    driveVelocities[3] = backRight.getDriveVelocity();
+  }
+
+  // Share the current budget out between the modules
+  public void updateCurrentBudget(){
+
+    driveCurrents[0] = frontLeft.getDriveCurrent();
+    driveCurrents[1] = frontRight.getDriveCurrent();
+    driveCurrents[2] = backLeft.getDriveCurrent();
+    driveCurrents[3] = backRight.getDriveCurrent();
+
+    currentBudget.update(monitor.getVoltage(), monitor.isBrownoutPredicted(), driveCurrents);
+
+    // Push new smart current limits only when they change
+    if(currentBudget.pollLimitsChanged()){
+      int driveLimit = currentBudget.getDriveLimit();
+      int turningLimit = currentBudget.getTurningLimit();
+      frontLeft.setCurrentLimits(driveLimit, turningLimit);
+      frontRight.setCurrentLimits(driveLimit, turningLimit);
+      backLeft.setCurrentLimits(driveLimit, turningLimit);
+      backRight.setCurrentLimits(driveLimit, turningLimit);
+    }
+  }
+
+  // Send odometry and module data to smart dashboard
+  public void updateTelemetry(){
 
     // Odometry
     SmartDashboard.putNumber("Heading", getHeading());
     SmartDashboard.putString("Field Location", getPose().getTranslation().toString());
+    SmartDashboard.putNumber("Slipping Modules", odometer.getSlipCount());
+    SmartDashboard.putBoolean("Chassis Slipping", velocityEstimator.isSlipping());
+
+    // Filtered chassis speeds, robot relative {vx, vy, omega}
+    chassisSpeeds[0] = velocityEstimator.getVx();
+    chassisSpeeds[1] = velocityEstimator.getVy();
+    chassisSpeeds[2] = velocityEstimator.getOmega();
+    chassisSpeedsEntry.setDoubleArray(chassisSpeeds);
+
+    // Robot relative IMU acceleration {x, y}, for checking the axis signs
+    imuAccelEntry.setDoubleArray(imuAccel);
+
+    // Current budget
+    SmartDashboard.putNumber("Current Budget", currentBudget.getBudget());
+    SmartDashboard.putNumber("Drive Scale", currentBudget.getDriveScale());
+
+    // Modules, see ModuleTelemetry for the layout
+    packModule(0, frontLeft);
+    packModule(1, frontRight);
+    packModule(2, backLeft);
+    packModule(3, backRight);
+    moduleTelemetry.publish(Timer.getFPGATimestamp());
+  }
+
+  // Copy one module's measured and commanded state into the packed telemetry
+  private void packModule(int i, SwerveModule module){
+    moduleTelemetry.setModule(i, module.getDrivePosition(), module.getDriveVelocity(), module.getTurningPosition(),
+      module.getLastAbsoluteEncoderRad(), desiredSpeeds[i], desiredAngles[i]);
+  }
+
+  // Update robot monitor, CAN reads happen on the monitor's own thread
+  public void updateMonitor(){
+    monitor.update();
+  }
 
-    // Update robot monitor
-    //monitor.update();
-    
-    frontLeft.update();
-    frontRight.update();
-    backLeft.update();
-    backRight.update();
-    
+  // Return robot monitor for cached power data
+  public Monitor getMonitor(){
+    return monitor;
   }
 
+  // Periodic looooooop, all work now runs in the rate groups above
+  @Override
+  public void periodic(){}
+
 }
 
 
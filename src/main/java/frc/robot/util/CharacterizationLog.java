@@ -0,0 +1,86 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+
+/* Preallocated buffer of timestamped voltage, position and velocity samples. Written from
+the high rate capture thread and read by the fit once capture has stopped, so add() never
+allocates and everything is guarded by the object's own lock. */
+public class CharacterizationLog {
+
+    // Samples each side used for the acceleration estimate, encoder velocity is noisy
+    private static final int kAccelerationWindow = 3;
+
+    private final double[] times;
+    private final double[] voltages;
+    private final double[] positions;
+    private final double[] velocities;
+    private final double[] accelerations;
+    private final int[] segments;
+    private int count;
+    private int segment;
+
+    // Class constructor
+    public CharacterizationLog(int capacity){
+        times = new double[capacity];
+        voltages = new double[capacity];
+        positions = new double[capacity];
+        velocities = new double[capacity];
+        accelerations = new double[capacity];
+        segments = new int[capacity];
+    }
+
+    // Add a sample, returns false once the buffer is full
+    public synchronized boolean add(double time, double voltage, double position, double velocity){
+        if(count >= times.length){
+            return false;
+        }
+        times[count] = time;
+        voltages[count] = voltage;
+        positions[count] = position;
+        velocities[count] = velocity;
+        segments[count] = segment;
+        count++;
+        return true;
+    }
+
+    // Start a new test, acceleration estimates never reach across tests
+    public synchronized void startSegment(){
+        segment++;
+    }
+
+    // Forget every sample
+    public synchronized void clear(){
+        count = 0;
+        segment = 0;
+    }
+
+    // Work out acceleration for every sample from a centered velocity difference
+    public synchronized void computeAccelerations(){
+        for(int i = 0; i < count; i++){
+            int before = i;
+            while(before > 0 && i - before < kAccelerationWindow && segments[before - 1] == segments[i]){
+                before--;
+            }
+            int after = i;
+            while(after < count - 1 && after - i < kAccelerationWindow && segments[after + 1] == segments[i]){
+                after++;
+            }
+            double dt = times[after] - times[before];
+            accelerations[i] = dt > 0 ? (velocities[after] - velocities[before]) / dt : 0;
+        }
+    }
+
+    // Get methods, index must be below size()
+    public synchronized int size(){return count;}
+
+    public synchronized double getTime(int i){return times[i];}
+
+    public synchronized double getVoltage(int i){return voltages[i];}
+
+    public synchronized double getPosition(int i){return positions[i];}
+
+    public synchronized double getVelocity(int i){return velocities[i];}
+
+    public synchronized double getAcceleration(int i){return accelerations[i];}
+
+}
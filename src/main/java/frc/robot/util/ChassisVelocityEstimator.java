@@ -0,0 +1,119 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import frc.robot.util.Constants.DriveConstants;
+
+/* Small Kalman filter for robot relative chassis velocity. The navX linear acceleration
+drives the prediction, with yaw rate rotating the velocity as the robot frame turns, and
+the velocity worked out from the wheels is the measurement. When the wheels disagree with
+the prediction by more than the gate (slipping, pushed, or lifted) the robot is flagged as
+slipping and the wheels are ignored, running on the IMU alone until they agree again. IMU
+integration drifts, so after kMaxSlipSeconds the wheels are taken back regardless. State is
+two velocities and a 2x2 covariance in plain fields, so an update never allocates. */
+public class ChassisVelocityEstimator {
+
+    // Estimate, robot relative, m/s and rad/s
+    private double vx;
+    private double vy;
+    private double omega;
+
+    // Covariance, symmetric so only three entries
+    private double p00 = 1;
+    private double p01 = 0;
+    private double p11 = 1;
+
+    private boolean slipping;
+    private double slipTime;
+    private double innovation;
+
+    // Start over from a known velocity
+    public void reset(double vx, double vy){
+        this.vx = vx;
+        this.vy = vy;
+        p00 = 1;
+        p01 = 0;
+        p11 = 1;
+        slipping = false;
+        slipTime = 0;
+        innovation = 0;
+    }
+
+    /* One step. Wheel velocity is from kinematics, acceleration from the IMU in the robot frame
+    (m/s^2, gravity removed), yaw rate in rad/s and dt in seconds. */
+    public void update(double wheelVx, double wheelVy, double accelX, double accelY, double yawRate, double dt){
+        omega = yawRate;
+
+        // Predict, velocity in a rotating frame picks up -omega x v
+        double turn = yawRate * dt;
+        double predictedVx = vx + (accelX + yawRate * vy) * dt;
+        double predictedVy = vy + (accelY - yawRate * vx) * dt;
+        vx = predictedVx;
+        vy = predictedVy;
+
+        // P = F P Ft + Q, F = [[1, turn], [-turn, 1]]
+        double a00 = p00 + turn * p01;
+        double a01 = p01 + turn * p11;
+        double a10 = -turn * p00 + p01;
+        double a11 = -turn * p01 + p11;
+        double q = DriveConstants.kVelocityProcessNoise * dt;
+        p00 = a00 + a01 * turn + q;
+        p01 = -a00 * turn + a01;
+        p11 = -a10 * turn + a11 + q;
+
+        // Innovation against the wheels, normalized by its covariance S = P + R
+        double r = DriveConstants.kWheelVelocityNoise;
+        double ex = wheelVx - vx;
+        double ey = wheelVy - vy;
+        double s00 = p00 + r;
+        double s01 = p01;
+        double s11 = p11 + r;
+        double det = s00 * s11 - s01 * s01;
+        innovation = (ex * (s11 * ex - s01 * ey) + ey * (s00 * ey - s01 * ex)) / det;
+
+        // Ignore the wheels while they disagree, up to the time limit
+        slipping = innovation > DriveConstants.kSlipInnovationGate;
+        if(slipping){
+            slipTime += dt;
+            if(slipTime < DriveConstants.kMaxSlipSeconds){
+                return;
+            }
+
+            // Been too long, IMU drift is now the bigger error so start over from the wheels
+            reset(wheelVx, wheelVy);
+            return;
+        }
+        slipTime = 0;
+
+        // K = P S^-1, then correct
+        double i00 = s11 / det;
+        double i01 = -s01 / det;
+        double i11 = s00 / det;
+        double k00 = p00 * i00 + p01 * i01;
+        double k01 = p00 * i01 + p01 * i11;
+        double k10 = p01 * i00 + p11 * i01;
+        double k11 = p01 * i01 + p11 * i11;
+        vx += k00 * ex + k01 * ey;
+        vy += k10 * ex + k11 * ey;
+
+        // P = (I - K) P
+        double n00 = (1 - k00) * p00 - k01 * p01;
+        double n01 = (1 - k00) * p01 - k01 * p11;
+        double n11 = -k10 * p01 + (1 - k11) * p11;
+        p00 = n00;
+        p01 = n01;
+        p11 = n11;
+    }
+
+    // Get methods
+    public double getVx(){return vx;}
+
+    public double getVy(){return vy;}
+
+    public double getOmega(){return omega;}
+
+    public boolean isSlipping(){return slipping;}
+
+    // Normalized innovation squared of the last wheel measurement
+    public double getInnovation(){return innovation;}
+
+}
@@ -0,0 +1,259 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.util.ArrayList;
+import java.util.List;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/* A trajectory kept in a few primitive arrays instead of a list of State objects, each with
+its own Pose2d, Translation2d and Rotation2d. Position between knots is a cubic Hermite
+segment in time, built from the knot positions and velocity vectors, and stored as
+coefficients. Speed, curvature and both headings are a table at the knots, read with linear
+interpolation. Knots are only kept where dropping them would move any original state by more
+than the tolerances below, so on the smooth parts most states go. States are built when
+they're sampled. getStates() builds a fresh list at a fixed step for code that wants one, and
+the WPILib transforms work on that list, but followers should use sample() and getHeading()
+so nothing is kept around. */
+public class CompactTrajectory extends Trajectory implements HolonomicHeading {
+
+    // How far a dropped state may end up from where it was
+    private static final double kPositionTolerance = 0.001;
+    private static final double kVelocityTolerance = 0.005;
+    private static final double kAngleTolerance = 0.002;
+    private static final double kCurvatureTolerance = 0.01;
+
+    // Most states one segment may cover, keeps building time bounded
+    private static final int kMaxSpan = 64;
+
+    // Spacing of the states getStates() builds
+    private static final double kStateStepSeconds = 0.02;
+
+    // Knot table
+    private final double[] times;
+    private final double[] velocities;
+    private final double[] curvatures;
+    private final double[] directions;
+    private final double[] headings;
+
+    // Per segment {x0, x1, x2, x3, y0, y1, y2, y3} in the segment's 0 to 1 parameter
+    private final double[] coefficients;
+
+    // Compact copy of any trajectory, holonomic heading comes from HolonomicHeading.of
+    public static CompactTrajectory of(Trajectory trajectory){
+        List<State> states = trajectory.getStates();
+        int n = states.size();
+        if(n < 2){
+            throw new IllegalArgumentException("A compact trajectory needs at least 2 states");
+        }
+        double[] heading = new double[n];
+        for(int i = 0; i < n; i++){
+            heading[i] = HolonomicHeading.of(trajectory, states.get(i));
+        }
+
+        // Greedily stretch each segment as far as the tolerances allow
+        int[] knots = new int[n];
+        int count = 0;
+        knots[count++] = 0;
+        int start = 0;
+        while(start < n - 1){
+            int end = start + 1;
+            while(end + 1 < n && end + 1 - start <= kMaxSpan && fits(states, heading, start, end + 1)){
+                end++;
+            }
+            knots[count++] = end;
+            start = end;
+        }
+        return new CompactTrajectory(states, heading, knots, count);
+    }
+
+    private CompactTrajectory(List<State> states, double[] heading, int[] knots, int count){
+        times = new double[count];
+        velocities = new double[count];
+        curvatures = new double[count];
+        directions = new double[count];
+        headings = new double[count];
+        coefficients = new double[(count - 1) * 8];
+
+        for(int k = 0; k < count; k++){
+            State state = states.get(knots[k]);
+            times[k] = state.timeSeconds;
+            velocities[k] = state.velocityMetersPerSecond;
+            curvatures[k] = state.curvatureRadPerMeter;
+            directions[k] = state.poseMeters.getRotation().getRadians();
+            headings[k] = heading[knots[k]];
+            if(k > 0){
+                hermite(states.get(knots[k - 1]), state, coefficients, (k - 1) * 8);
+            }
+        }
+    }
+
+    // True if one segment from start to end reproduces every state in between
+    private static boolean fits(List<State> states, double[] heading, int start, int end){
+        State first = states.get(start);
+        State last = states.get(end);
+        double span = last.timeSeconds - first.timeSeconds;
+        if(span <= 0){
+            return false;
+        }
+        double[] segment = new double[8];
+        hermite(first, last, segment, 0);
+
+        for(int i = start + 1; i < end; i++){
+            State state = states.get(i);
+            double s = (state.timeSeconds - first.timeSeconds) / span;
+            double x = segment[0] + s * (segment[1] + s * (segment[2] + s * segment[3]));
+            double y = segment[4] + s * (segment[5] + s * (segment[6] + s * segment[7]));
+            if(Math.hypot(x - state.poseMeters.getX(), y - state.poseMeters.getY()) > kPositionTolerance
+                || Math.abs(lerp(first.velocityMetersPerSecond, last.velocityMetersPerSecond, s) - state.velocityMetersPerSecond) > kVelocityTolerance
+                || Math.abs(lerp(first.curvatureRadPerMeter, last.curvatureRadPerMeter, s) - state.curvatureRadPerMeter) > kCurvatureTolerance
+                || angleError(first.poseMeters.getRotation().getRadians(), last.poseMeters.getRotation().getRadians(), s, state.poseMeters.getRotation().getRadians()) > kAngleTolerance
+                || angleError(heading[start], heading[end], s, heading[i]) > kAngleTolerance){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cubic Hermite coefficients between two states, tangents are velocity times the segment time
+    private static void hermite(State first, State last, double[] out, int offset){
+        double span = last.timeSeconds - first.timeSeconds;
+        double firstDirection = first.poseMeters.getRotation().getRadians();
+        double lastDirection = last.poseMeters.getRotation().getRadians();
+        double m0x = first.velocityMetersPerSecond * Math.cos(firstDirection) * span;
+        double m0y = first.velocityMetersPerSecond * Math.sin(firstDirection) * span;
+        double m1x = last.velocityMetersPerSecond * Math.cos(lastDirection) * span;
+        double m1y = last.velocityMetersPerSecond * Math.sin(lastDirection) * span;
+        double x0 = first.poseMeters.getX();
+        double y0 = first.poseMeters.getY();
+        double x1 = last.poseMeters.getX();
+        double y1 = last.poseMeters.getY();
+
+        out[offset] = x0;
+        out[offset + 1] = m0x;
+        out[offset + 2] = 3 * (x1 - x0) - 2 * m0x - m1x;
+        out[offset + 3] = 2 * (x0 - x1) + m0x + m1x;
+        out[offset + 4] = y0;
+        out[offset + 5] = m0y;
+        out[offset + 6] = 3 * (y1 - y0) - 2 * m0y - m1y;
+        out[offset + 7] = 2 * (y0 - y1) + m0y + m1y;
+    }
+
+    // Build the state at a time
+    @Override
+    public State sample(double time){
+        int last = times.length - 1;
+        if(time <= times[0]){
+            return stateAt(0, 0);
+        }
+        if(time >= times[last]){
+            return stateAt(last - 1, 1);
+        }
+        int segment = segmentAt(time);
+        return stateAt(segment, (time - times[segment]) / (times[segment + 1] - times[segment]));
+    }
+
+    private State stateAt(int segment, double s){
+        int c = segment * 8;
+        double span = times[segment + 1] - times[segment];
+        double x = coefficients[c] + s * (coefficients[c + 1] + s * (coefficients[c + 2] + s * coefficients[c + 3]));
+        double y = coefficients[c + 4] + s * (coefficients[c + 5] + s * (coefficients[c + 6] + s * coefficients[c + 7]));
+        double direction = directions[segment] + Math.IEEEremainder(directions[segment + 1] - directions[segment], 2 * Math.PI) * s;
+        return new State(
+            times[segment] + span * s,
+            lerp(velocities[segment], velocities[segment + 1], s),
+            span > 0 ? (velocities[segment + 1] - velocities[segment]) / span : 0,
+            new Pose2d(x, y, new Rotation2d(direction)),
+            lerp(curvatures[segment], curvatures[segment + 1], s));
+    }
+
+    // Holonomic heading at a time, interpolated the short way around
+    @Override
+    public double getHeading(double time){
+        int last = times.length - 1;
+        if(time <= times[0]){
+            return headings[0];
+        }
+        if(time >= times[last]){
+            return headings[last];
+        }
+        int segment = segmentAt(time);
+        double s = (time - times[segment]) / (times[segment + 1] - times[segment]);
+        return headings[segment] + Math.IEEEremainder(headings[segment + 1] - headings[segment], 2 * Math.PI) * s;
+    }
+
+    // Binary search for the segment holding a time inside the trajectory
+    private int segmentAt(double time){
+        int low = 0;
+        int high = times.length - 1;
+        while(high - low > 1){
+            int mid = (low + high) >>> 1;
+            if(times[mid] <= time){
+                low = mid;
+            }
+            else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double lerp(double a, double b, double s){
+        return a + (b - a) * s;
+    }
+
+    private static double angleError(double a, double b, double s, double actual){
+        return Math.abs(Math.IEEEremainder(a + Math.IEEEremainder(b - a, 2 * Math.PI) * s - actual, 2 * Math.PI));
+    }
+
+    // States at a fixed step and at the end, built on every call
+    @Override
+    public List<State> getStates(){
+        double total = getTotalTimeSeconds();
+        int steps = (int) Math.ceil((total - times[0]) / kStateStepSeconds);
+        List<State> states = new ArrayList<>(steps + 1);
+        for(int i = 0; i <= steps; i++){
+            states.add(sample(Math.min(times[0] + i * kStateStepSeconds, total)));
+        }
+        return states;
+    }
+
+    // The WPILib transforms read the state list directly, so give them the built one
+    @Override
+    public Trajectory transformBy(Transform2d transform){
+        return new Trajectory(getStates()).transformBy(transform);
+    }
+
+    @Override
+    public Trajectory relativeTo(Pose2d pose){
+        return new Trajectory(getStates()).relativeTo(pose);
+    }
+
+    @Override
+    public Trajectory concatenate(Trajectory other){
+        return new Trajectory(getStates()).concatenate(other);
+    }
+
+    @Override
+    public double getTotalTimeSeconds(){
+        return times[times.length - 1];
+    }
+
+    @Override
+    public Pose2d getInitialPose(){
+        return sample(0).poseMeters;
+    }
+
+    // Get methods
+    public int getKnotCount(){
+        return times.length;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("CompactTrajectory(%d knots, %.2f s)", times.length, getTotalTimeSeconds());
+    }
+
+}
@@ -1,6 +1,9 @@
 // FRC2106 Junkyard Dogs - Swerve Drive Base Code
 
 package frc.robot.util;
+import com.pathplanner.lib.PathConstraints;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
@@ -17,7 +20,14 @@ public final class Constants {
         public static final double kTurningEncoderRot2Rad = kTurningMotorGearRatio * 2 * Math.PI;
         public static final double kDriveEncoderRPM2MeterPerSec = kDriveEncoderRot2Meter / 60;
         public static final double kTurningEncoderRPM2RadPerSec = kTurningEncoderRot2Rad / 60;
-        public static final double kPTurning = 0.5;
+        public static final double kPTurning = TunedGains.get("kPTurning", 0.5);
+
+        // Free speed module limits, used by the simulator and setpoint math
+        public static final double kMaxSteerRateRadPerSec = 5676 * kTurningEncoderRPM2RadPerSec; // NEO free speed
+        public static final double kMaxDriveAccelerationMetersPerSecondSquared = 8;
+
+        // Encoder status frame period while logging at a high rate
+        public static final int kFastStatusFramePeriodMs = 5;
     }
 
     // Swerve drive
@@ -46,6 +56,9 @@ public final class Constants {
                 new Translation2d(-kWheelBase / 2, -kTrackWidth / 2));
 >>>>>>> a782038bf7ae0b5bdd397510f2c2cb4b594c1e16
 
+        // Same geometry without the matrix library, for per cycle use
+        public static final FixedSwerveKinematics kFixedKinematics = new FixedSwerveKinematics(kWheelBase, kTrackWidth);
+
                                                                // Driving Motor Ports
         public static final int kFrontLeftDriveMotorPort = 1;  // Front Left 
         public static final int kFrontRightDriveMotorPort = 3; // Front Right
@@ -110,6 +123,47 @@ public final class Constants {
         public static final double kTeleDriveMaxAngularSpeedRadiansPerSecond = kPhysicalMaxAngularSpeedRadiansPerSecond;
         public static final double kTeleDriveMaxAccelerationUnitsPerSecond = 5;
         public static final double kTeleDriveMaxAngularAccelerationUnitsPerSecond = 5;
+
+        // Setpoint generator, modules slower than this may swing freely, and the longest step it plans for
+        public static final double kSetpointMovingSpeed = 0.05;
+        public static final double kMaxTeleopStepSeconds = 0.1;
+
+        // Heading hold and snap profile, and how slow the robot has to be turning before a heading is held
+        public static final double kHeadingMaxVelocityRadiansPerSecond = 2 * Math.PI;
+        public static final double kHeadingMaxAccelerationRadiansPerSecondSquared = 4 * Math.PI;
+        public static final double kHeadingCaptureRateRadiansPerSecond = 0.2;
+
+        // Delay from module states going out to the motors acting on them, CAN frame plus controller update
+        public static final double kActuationLatencySeconds = 0.01;
+        public static final double kLatencySmoothing = 0.1;
+
+        // Odometry slip rejection, a module is slipping once it disagrees with the rest by the fixed
+        // tolerance plus a fraction of the step, and a step longer than the max means an encoder reset
+        public static final double kSlipToleranceMeters = 0.002;
+        public static final double kSlipToleranceFraction = 0.15;
+        public static final double kMaxModuleDeltaMeters = 0.2;
+
+        // Chassis velocity filter, variances in (m/s)^2, process noise per second, gate is chi squared 2 dof at 99%
+        public static final double kVelocityProcessNoise = 0.5;
+        public static final double kWheelVelocityNoise = 0.01;
+        public static final double kSlipInnovationGate = 9.21;
+        public static final double kMaxSlipSeconds = 1;
+        public static final double kMaxEstimatorStepSeconds = 0.05;
+
+        // navX yaw is clockwise positive, everything in WPILib and our odometry is counterclockwise
+        public static final double kGyroSign = -1;
+
+        /* navX linear acceleration, g to m/s^2 and sign of each axis in the robot frame. The
+        "world" accelerations only have gravity taken out, they stay on the board's X and Y axes
+        and turn with the robot, so they're robot relative once the signs match how the board is
+        mounted. Check on the dashboard's IMU Accel: pushing the robot forward should read +x
+        and pushing it left +y, flip the sign of any axis that doesn't. */
+        public static final double kGravity = 9.80665;
+        public static final double kImuAccelXSign = 1;
+        public static final double kImuAccelYSign = 1;
+
+        // Pose history size, a bit over 2 seconds at the 100 Hz odometry rate
+        public static final int kPoseHistoryCapacity = 256;
     }
 
     // Autonomous
@@ -119,9 +173,59 @@ public final class Constants {
         public static final double kMaxAngularSpeedRadiansPerSecond = DriveConstants.kPhysicalMaxAngularSpeedRadiansPerSecond / 15;
         public static final double kMaxAccelerationMetersPerSecondSquared = 3;
         public static final double kMaxAngularAccelerationRadiansPerSecondSquared = Math.PI / 4;
-        public static final double kPXController = 1.5;
-        public static final double kPYController = 1.5;
-        public static final double kPThetaController = 3;
+
+        // Trajectory gains, overridden by the gain tuner's deploy/tuning/gains.properties if present
+        public static final double kPXController = TunedGains.get("kPXController", 1.5);
+        public static final double kPYController = TunedGains.get("kPYController", 1.5);
+        public static final double kPThetaController = TunedGains.get("kPThetaController", 3);
+
+        // Retiming limits, the rest come from the module constants
+        public static final double kRetimeMaxSpeedMetersPerSecond = DriveConstants.kPhysicalMaxSpeedMetersPerSecond * 0.8;
+        public static final double kRetimeMaxAccelerationMetersPerSecondSquared = kMaxAccelerationMetersPerSecondSquared;
+        public static final double kRetimeMaxCentripetalAccelerationMetersPerSecondSquared = 3;
+        public static final double kRetimeSteerRateFraction = 0.5;
+        public static final double kRetimeSampleSeconds = 0.005;
+
+        // Follower lookahead on top of the measured latency, and the step used for heading rate feedforward
+        public static final double kFollowerExtraLookaheadSeconds = 0;
+        public static final double kFollowerHeadingRateStepSeconds = 0.02;
+
+        // Path tracking report, about 30 seconds of samples per path at 50 Hz
+        public static final int kPathMetricsCapacity = 1500;
+        public static final int kMaxReportedPaths = 16;
+
+        // Grid planner, cell size, extra room past the robot's corners, and a cost for passing close to obstacles
+        public static final double kPlannerCellMeters = 0.1;
+        public static final double kPlannerMarginMeters = 0.1;
+        public static final double kPlannerPreferredClearanceMeters = 0.4;
+        public static final double kPlannerClearancePenalty = 2;
+
+        // Times a spline that cuts into a blocked cell gets another corner before the plan is refused
+        public static final int kPlannerMaxRefinements = 6;
+        public static final Pose2d kDriveToPoseGoal = new Pose2d(2, 3, new Rotation2d());
+
+        // Replan the rest of a path once the robot is this far off for this many cycles, rejoining this far ahead
+        public static final double kReplanDeviationMeters = 0.3;
+        public static final int kReplanConfirmCycles = 3;
+        public static final double kReplanCooldownSeconds = 0.5;
+        public static final double kReplanRejoinSeconds = 1;
+        public static final double kReplanMinSpeedMetersPerSecond = 0.1;
+
+        // Spacing of the states copied from the old path after the rejoin point
+        public static final double kReplanSampleSeconds = 0.02;
+
+        // Path files have to be quiet this long before the sim reloads them
+        public static final double kHotReloadDebounceSeconds = 0.05;
+
+        // Velocity and acceleration every PathPlanner path is loaded with
+        public static final PathConstraints kPathConstraints = new PathConstraints(0.5, 0.5);
+
+        // Most threads used to load paths at boot, fewer if the processor has fewer cores
+        public static final int kPathLoaderThreads = 4;
+
+        // Auto period length, and time left over for the scheduler cycles each command takes to hand off
+        public static final double kAutoPeriodSeconds = 15;
+        public static final double kAutoBudgetMarginSeconds = 0.25;
 
         public static final TrapezoidProfile.Constraints kThetaControllerConstraints = 
         new TrapezoidProfile.Constraints(
@@ -129,11 +233,35 @@ public final class Constants {
             kMaxAngularAccelerationRadiansPerSecondSquared);
     }
 
+    // Field layout for the planner, 2023 field with the blue origin
+    public static final class FieldConstants {
+
+        public static final double kFieldLengthMeters = 16.54;
+        public static final double kFieldWidthMeters = 8.02;
+
+        // Static obstacles as {min x, min y, max x, max y}
+        public static final double[][] kObstacles = {
+            {2.92, 1.51, 4.85, 3.98},   // Blue charge station
+            {11.69, 1.51, 13.62, 3.98}  // Red charge station
+        };
+    }
+
     // Input and Output 
     public static final class IOConstants {
 
         public static final double kDeadband = 0.05;
 
+        // Response curves, 0 is linear and 1 is fully cubic
+        public static final double kDriveExpo = 0.3;
+        public static final double kTurningExpo = 0.3;
+        public static final int kResponseCurveSize = 257;
+
+        // Axes sampled per joystick, and which right joystick axes drive the robot
+        public static final int kMaxAxes = 6;
+        public static final int kDriveXAxis = 0;
+        public static final int kDriveYAxis = 1;
+        public static final int kDriveRotationAxis = 2; // dial
+
         public static final int kLeftJoystick = 0;
         public static final int kRightJoystick = 1;
         public static final int kXboxController = 3;
@@ -141,6 +269,11 @@ public final class Constants {
         public static final int kFieldOrientedButton = 3;
         public static final int kZeroHeadingButton = 2;
         public static final int kRotatorButton = 3;
+        public static final int kDriveToPoseButton = 1; // Left joystick trigger
+
+        // Right joystick buttons that snap the heading to the matching field angle
+        public static final int[] kSnapButtons = {3, 4, 5, 6};
+        public static final double[] kSnapAnglesRadians = {0, Math.PI / 2, Math.PI, -Math.PI / 2};
            
     }
 
@@ -151,4 +284,83 @@ public final class Constants {
         public static final int deltaHeight = 0; 
         public static final int cameraAngle = 45;
     }
+
+    // Periodic rate groups
+    public static final class RateConstants {
+
+        // Default TimedRobot loop period
+        public static final double kMainLoopPeriodSeconds = 0.02;
+
+        public static final double kOdometryPeriodSeconds = 0.01;  // 100 Hz
+        public static final double kCurrentBudgetPeriodSeconds = 0.02; // 50 Hz
+        public static final double kTelemetryPeriodSeconds = 0.1;  // 10 Hz
+        public static final double kMonitorPeriodSeconds = 0.5;    // 2 Hz
+    }
+
+    // Drivetrain characterization
+    public static final class CharacterizationConstants {
+
+        // 250 Hz capture, enough room for about 30 seconds of it
+        public static final double kSamplePeriodSeconds = 0.004;
+        public static final int kLogCapacity = 8192;
+
+        // Quasistatic ramp rate and dynamic step size
+        public static final double kDriveRampVoltsPerSecond = 0.5;
+        public static final double kDriveStepVolts = 6;
+        public static final double kTurningRampVoltsPerSecond = 0.5;
+        public static final double kTurningStepVolts = 3;
+
+        // Stop the test after this long
+        public static final double kQuasistaticTimeoutSeconds = 12;
+        public static final double kDynamicTimeoutSeconds = 3;
+
+        // Samples slower than this are left out of the fit, static friction muddies them
+        public static final double kMinFitVelocity = 0.05;
+    }
+
+    // Power distribution
+    public static final class PowerConstants {
+
+        // How often the background thread reads the PDP
+        public static final double kPollPeriodSeconds = 0.02;
+
+        // PDP channels for each swerve motor
+        public static final int[] kSwerveMotorChannels = {
+            0,  // Front Left Drive
+            1,  // Front Left Turning
+            14, // Front Right Drive
+            15, // Front Right Turning
+            12, // Back Right Drive
+            13, // Back Right Turning
+            2,  // Back Left Drive
+            3   // Back Left Turning
+        };
+
+        // roboRIO brownout threshold
+        public static final double kBrownoutVoltage = 6.8;
+
+        // How far ahead and over how many samples we look for brownouts
+        public static final double kBrownoutHorizonSeconds = 0.25;
+        public static final int kTrendSamples = 10;
+
+        // Lower bound on fitted battery + wiring resistance
+        public static final double kNominalBatteryResistanceOhms = 0.015;
+
+        // Current budget for all eight swerve motors
+        public static final double kTotalCurrentBudgetAmps = 240;
+        public static final double kBudgetSagStartVoltage = 9.5;
+        public static final double kMinBudgetFraction = 0.5;
+        public static final double kBrownoutBudgetFraction = 0.6;
+
+        // Smart current limit ranges per motor
+        public static final int kMinDriveCurrentLimitAmps = 20;
+        public static final int kMaxDriveCurrentLimitAmps = 60;
+        public static final int kMinTurningCurrentLimitAmps = 10;
+        public static final int kMaxTurningCurrentLimitAmps = 30;
+        public static final int kLimitHysteresisAmps = 5;
+
+        // Drive output scaling
+        public static final double kMinDriveScale = 0.3;
+        public static final double kDriveScaleRecoveryPerCycle = 0.05;
+    }
 }
@@ -0,0 +1,105 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import frc.robot.util.Constants.PowerConstants;
+
+/* Splits a total current budget between the swerve motors every cycle. Steering is
+served first since a module that can't point is worse than one that is slow, so its full
+cap is set aside and only lowered when a sagging battery can't cover it. Whatever is left
+goes to the drive motors. When the drive motors pull more than their
+share the commanded drive speeds are scaled down together so the robot keeps its heading
+of travel. The budget shrinks as the battery sags or a brownout is predicted. */
+public class CurrentBudget {
+
+    // Number of modules sharing the budget
+    private final int modules;
+
+    // Smart current limits we last sent to the motor controllers
+    private int driveLimit = PowerConstants.kMaxDriveCurrentLimitAmps;
+    private int turningLimit = PowerConstants.kMaxTurningCurrentLimitAmps;
+    private boolean limitsChanged = true;
+
+    // Scale applied to commanded drive speeds
+    private double driveScale = 1;
+
+    // Budget worked out on the last update, for telemetry
+    private double budgetAmps = PowerConstants.kTotalCurrentBudgetAmps;
+
+    // Class constructor
+    public CurrentBudget(int modules){
+        this.modules = modules;
+    }
+
+    // Recompute limits and drive scale from cached voltage and measured drive currents
+    public void update(double voltage, boolean brownoutPredicted, double[] driveCurrents){
+
+        // Shrink the budget linearly once voltage sags below the start threshold
+        double budget = PowerConstants.kTotalCurrentBudgetAmps;
+        if(voltage > 0 && voltage < PowerConstants.kBudgetSagStartVoltage){
+            double sag = (PowerConstants.kBudgetSagStartVoltage - voltage)
+                / (PowerConstants.kBudgetSagStartVoltage - PowerConstants.kBrownoutVoltage);
+            sag = Math.min(Math.max(sag, 0), 1);
+            budget *= 1 - sag * (1 - PowerConstants.kMinBudgetFraction);
+        }
+        if(brownoutPredicted){
+            budget *= PowerConstants.kBrownoutBudgetFraction;
+        }
+        budgetAmps = budget;
+
+        // Sum up what the drive motors are pulling
+        double driveDraw = 0;
+        for(int i = 0; i < modules; i++){
+            driveDraw += Math.abs(driveCurrents[i]);
+        }
+
+        // Steering keeps its cap unless the budget can't cover it on top of the drive floor
+        int newTurningLimit = clamp(
+            (int) Math.floor(budget / modules) - PowerConstants.kMinDriveCurrentLimitAmps,
+            PowerConstants.kMinTurningCurrentLimitAmps, PowerConstants.kMaxTurningCurrentLimitAmps);
+
+        // Drive shares whatever is left
+        double driveAllowance = Math.max(budget - modules * (double) newTurningLimit, 0);
+        int newDriveLimit = clamp(
+            (int) (driveAllowance / modules),
+            PowerConstants.kMinDriveCurrentLimitAmps, PowerConstants.kMaxDriveCurrentLimitAmps);
+
+        // Only resend limits when they move far enough to matter
+        if(Math.abs(newDriveLimit - driveLimit) >= PowerConstants.kLimitHysteresisAmps
+            || Math.abs(newTurningLimit - turningLimit) >= PowerConstants.kLimitHysteresisAmps){
+            driveLimit = newDriveLimit;
+            turningLimit = newTurningLimit;
+            limitsChanged = true;
+        }
+
+        // Scale drive output down right away when over budget, recover slowly
+        double targetScale = driveDraw > driveAllowance && driveDraw > 0 ? driveAllowance / driveDraw : 1;
+        if(targetScale < driveScale){
+            driveScale = targetScale;
+        }
+        else{
+            driveScale = Math.min(targetScale, driveScale + PowerConstants.kDriveScaleRecoveryPerCycle);
+        }
+        driveScale = Math.max(driveScale, PowerConstants.kMinDriveScale);
+    }
+
+    // Returns true once after the limits change, caller should push them to the motors
+    public boolean pollLimitsChanged(){
+        boolean changed = limitsChanged;
+        limitsChanged = false;
+        return changed;
+    }
+
+    // Get methods
+    public int getDriveLimit(){return driveLimit;}
+
+    public int getTurningLimit(){return turningLimit;}
+
+    public double getDriveScale(){return driveScale;}
+
+    public double getBudget(){return budgetAmps;}
+
+    private static int clamp(int value, int min, int max){
+        return Math.max(min, Math.min(max, value));
+    }
+
+}
@@ -0,0 +1,72 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+
+/* Least squares fit of V = kS * sign(v) + kV * v + kA * a over a characterization log.
+Only the normal equation sums are kept, so the fit is a single pass with no allocation
+and a 3x3 solve by Cramer's rule at the end. */
+public final class FeedforwardFit {
+
+    // Indexes into the output array
+    public static final int kS = 0;
+    public static final int kV = 1;
+    public static final int kA = 2;
+    public static final int kRSquared = 3;
+
+    private FeedforwardFit(){}
+
+    // Fit the log into out as {kS, kV, kA, r squared}, returns false if there isn't enough data
+    public static boolean fit(CharacterizationLog log, double minVelocity, double[] out){
+
+        // Normal equation sums, x = {sign(v), v, a}
+        double ss = 0, sv = 0, sa = 0, vv = 0, va = 0, aa = 0;
+        double sy = 0, vy = 0, ay = 0;
+        double yy = 0, ySum = 0;
+        int n = 0;
+
+        for(int i = 0; i < log.size(); i++){
+            double v = log.getVelocity(i);
+            if(Math.abs(v) < minVelocity){
+                continue;
+            }
+            double s = Math.signum(v);
+            double a = log.getAcceleration(i);
+            double y = log.getVoltage(i);
+
+            ss += s * s; sv += s * v; sa += s * a;
+            vv += v * v; va += v * a; aa += a * a;
+            sy += s * y; vy += v * y; ay += a * y;
+            yy += y * y; ySum += y;
+            n++;
+        }
+
+        if(n < 3){
+            return false;
+        }
+
+        // Cramer's rule on the symmetric 3x3 system
+        double det = determinant(ss, sv, sa, sv, vv, va, sa, va, aa);
+        if(Math.abs(det) < 1e-12){
+            return false;
+        }
+        double ks = determinant(sy, sv, sa, vy, vv, va, ay, va, aa) / det;
+        double kv = determinant(ss, sy, sa, sv, vy, va, sa, ay, aa) / det;
+        double ka = determinant(ss, sv, sy, sv, vv, vy, sa, va, ay) / det;
+
+        // r squared from the sums, residual = yy - 2 b.Xty + b.XtX.b and b.XtX.b = b.Xty at the solution
+        double residual = yy - (ks * sy + kv * vy + ka * ay);
+        double total = yy - ySum * ySum / n;
+
+        out[kS] = ks;
+        out[kV] = kv;
+        out[kA] = ka;
+        out[kRSquared] = total > 0 ? 1 - residual / total : 0;
+        return true;
+    }
+
+    private static double determinant(double a, double b, double c, double d, double e, double f,
+    double g, double h, double i){
+        return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+    }
+
+}
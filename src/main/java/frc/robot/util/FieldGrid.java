@@ -0,0 +1,343 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import frc.robot.util.Constants.AutoConstants;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.FieldConstants;
+
+/* Navigation grid over the whole field, built once. Every cell caches its distance to the
+nearest wall or obstacle, and cells closer than the robot's corner radius plus a margin are
+blocked. findPath() runs A* over 8 connected cells, with steps that pass close to obstacles
+costing a bit more so paths keep some room when they can, then pulls the cell path tight into
+as few straight segments as line of sight allows. All search arrays are kept between calls,
+so a search allocates nothing, but only one search can run at a time. */
+public class FieldGrid {
+
+    private static final double kSqrt2 = Math.sqrt(2);
+    private static final int[] kStepX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] kStepY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final double cellSize;
+    private final int width;
+    private final int height;
+
+    // Cached distance field and what it blocks
+    private final double[] clearance;
+    private final boolean[] blocked;
+
+    // Search arrays, a cell's entries are only valid when its stamp matches the current search
+    private final double[] cost;
+    private final int[] cameFrom;
+    private final int[] openStamp;
+    private final int[] closedStamp;
+    private int search;
+
+    // Binary heap of open cells, stale entries are skipped when they come off
+    private final int[] heapCells;
+    private final double[] heapKeys;
+    private int heapSize;
+
+    // Cell path from the last search, goal first
+    private final int[] cellPath;
+
+    // Class constructor with the field in FieldConstants
+    public FieldGrid(){
+        this(FieldConstants.kFieldLengthMeters, FieldConstants.kFieldWidthMeters, FieldConstants.kObstacles,
+        AutoConstants.kPlannerCellMeters,
+        Math.hypot(DriveConstants.kWheelBase, DriveConstants.kTrackWidth) / 2 + AutoConstants.kPlannerMarginMeters);
+    }
+
+    // Class constructor, obstacles as {min x, min y, max x, max y}
+    public FieldGrid(double length, double width, double[][] obstacles, double cellSize, double robotRadius){
+        this.cellSize = cellSize;
+        this.width = (int) Math.ceil(length / cellSize);
+        this.height = (int) Math.ceil(width / cellSize);
+        int cells = this.width * this.height;
+
+        clearance = new double[cells];
+        blocked = new boolean[cells];
+        cost = new double[cells];
+        cameFrom = new int[cells];
+        openStamp = new int[cells];
+        closedStamp = new int[cells];
+        heapCells = new int[cells * kStepX.length + 1];
+        heapKeys = new double[cells * kStepX.length + 1];
+        cellPath = new int[cells];
+
+        buildDistanceField(obstacles);
+        for(int i = 0; i < cells; i++){
+            blocked[i] = clearance[i] < robotRadius;
+        }
+    }
+
+    // Distance from every cell to the nearest wall or obstacle, two pass chamfer transform
+    private void buildDistanceField(double[][] obstacles){
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+
+                // Walls count as obstacles just past the edge cells
+                double centerX = (x + 0.5) * cellSize;
+                double centerY = (y + 0.5) * cellSize;
+                double wall = Math.min(Math.min(centerX, width * cellSize - centerX), Math.min(centerY, height * cellSize - centerY));
+                clearance[index(x, y)] = wall;
+
+                for(double[] obstacle : obstacles){
+                    if(centerX >= obstacle[0] && centerX <= obstacle[2] && centerY >= obstacle[1] && centerY <= obstacle[3]){
+                        clearance[index(x, y)] = 0;
+                    }
+                }
+            }
+        }
+
+        // Forward pass from the top left neighbours, backward pass from the bottom right ones
+        double diagonal = cellSize * kSqrt2;
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                int i = index(x, y);
+                if(x > 0) clearance[i] = Math.min(clearance[i], clearance[i - 1] + cellSize);
+                if(y > 0) clearance[i] = Math.min(clearance[i], clearance[i - width] + cellSize);
+                if(x > 0 && y > 0) clearance[i] = Math.min(clearance[i], clearance[i - width - 1] + diagonal);
+                if(x < width - 1 && y > 0) clearance[i] = Math.min(clearance[i], clearance[i - width + 1] + diagonal);
+            }
+        }
+        for(int y = height - 1; y >= 0; y--){
+            for(int x = width - 1; x >= 0; x--){
+                int i = index(x, y);
+                if(x < width - 1) clearance[i] = Math.min(clearance[i], clearance[i + 1] + cellSize);
+                if(y < height - 1) clearance[i] = Math.min(clearance[i], clearance[i + width] + cellSize);
+                if(x < width - 1 && y < height - 1) clearance[i] = Math.min(clearance[i], clearance[i + width + 1] + diagonal);
+                if(x > 0 && y < height - 1) clearance[i] = Math.min(clearance[i], clearance[i + width - 1] + diagonal);
+            }
+        }
+    }
+
+    // Plan between two field points, fills out with {x0, y0, x1, y1, ...} from start to goal
+    // and returns the number of points, or 0 if the goal is blocked or can't be reached
+    public synchronized int findPath(double startX, double startY, double goalX, double goalY, double[] out){
+        int goal = cellAt(goalX, goalY);
+        if(blocked[goal]){
+            return 0;
+        }
+
+        // A robot pressed against something starts from the nearest free cell
+        int start = nearestFree(cellAt(startX, startY));
+        if(start < 0){
+            return 0;
+        }
+
+        if(!search(start, goal)){
+            return 0;
+        }
+
+        // Walk back from the goal
+        int length = 0;
+        for(int cell = goal; cell != start; cell = cameFrom[cell]){
+            cellPath[length++] = cell;
+        }
+        cellPath[length++] = start;
+
+        // Pull tight, keep the furthest cell still in sight of the last kept point
+        int count = 0;
+        out[count * 2] = startX;
+        out[count * 2 + 1] = startY;
+        count++;
+        double fromX = startX;
+        double fromY = startY;
+        int next = length - 1;
+        while(next > 0 && count * 2 + 3 < out.length){
+            int furthest = next - 1;
+            while(furthest > 0 && lineOfSight(fromX, fromY, centerX(cellPath[furthest - 1]), centerY(cellPath[furthest - 1]))){
+                furthest--;
+            }
+            if(furthest == 0){
+                break;
+            }
+            fromX = centerX(cellPath[furthest]);
+            fromY = centerY(cellPath[furthest]);
+            out[count * 2] = fromX;
+            out[count * 2 + 1] = fromY;
+            count++;
+            next = furthest;
+        }
+        out[count * 2] = goalX;
+        out[count * 2 + 1] = goalY;
+        return count + 1;
+    }
+
+    // A* from start to goal, true if the goal was reached
+    private boolean search(int start, int goal){
+        search++;
+        heapSize = 0;
+        int goalX = goal % width;
+        int goalY = goal / width;
+
+        cost[start] = 0;
+        openStamp[start] = search;
+        push(start, heuristic(start % width, start / width, goalX, goalY));
+
+        while(heapSize > 0){
+            int cell = pop();
+            if(closedStamp[cell] == search){
+                continue;
+            }
+            if(cell == goal){
+                return true;
+            }
+            closedStamp[cell] = search;
+
+            int x = cell % width;
+            int y = cell / width;
+            for(int step = 0; step < kStepX.length; step++){
+                int nx = x + kStepX[step];
+                int ny = y + kStepY[step];
+                if(nx < 0 || ny < 0 || nx >= width || ny >= height){
+                    continue;
+                }
+                int neighbour = index(nx, ny);
+                if(blocked[neighbour] || closedStamp[neighbour] == search){
+                    continue;
+                }
+
+                // No cutting diagonally between two blocked cells
+                if(step >= 4 && (blocked[index(nx, y)] || blocked[index(x, ny)])){
+                    continue;
+                }
+
+                double length = step >= 4 ? cellSize * kSqrt2 : cellSize;
+                double tight = Math.max(0, AutoConstants.kPlannerPreferredClearanceMeters - clearance[neighbour]) / AutoConstants.kPlannerPreferredClearanceMeters;
+                double candidate = cost[cell] + length * (1 + AutoConstants.kPlannerClearancePenalty * tight);
+                if(openStamp[neighbour] != search || candidate < cost[neighbour]){
+                    openStamp[neighbour] = search;
+                    cost[neighbour] = candidate;
+                    cameFrom[neighbour] = cell;
+                    push(neighbour, candidate + heuristic(nx, ny, goalX, goalY));
+                }
+            }
+        }
+        return false;
+    }
+
+    // Octile distance, never more than the real cost since every step costs at least its length
+    private double heuristic(int x, int y, int goalX, int goalY){
+        int dx = Math.abs(x - goalX);
+        int dy = Math.abs(y - goalY);
+        return cellSize * (Math.max(dx, dy) + (kSqrt2 - 1) * Math.min(dx, dy));
+    }
+
+    // Straight line between two points stays in free cells
+    public boolean lineOfSight(double fromX, double fromY, double toX, double toY){
+        double distance = Math.hypot(toX - fromX, toY - fromY);
+        int steps = (int) Math.ceil(distance / (cellSize / 2));
+        for(int i = 0; i <= steps; i++){
+            double t = steps == 0 ? 0 : (double) i / steps;
+            if(blocked[cellAt(fromX + (toX - fromX) * t, fromY + (toY - fromY) * t)]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Closest free cell by growing square rings, -1 if there isn't one
+    private int nearestFree(int cell){
+        if(!blocked[cell]){
+            return cell;
+        }
+        int x = cell % width;
+        int y = cell / width;
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for(int ring = 1; ring < Math.max(width, height); ring++){
+            for(int dy = -ring; dy <= ring; dy++){
+                for(int dx = -ring; dx <= ring; dx++){
+                    if(Math.max(Math.abs(dx), Math.abs(dy)) != ring){
+                        continue;
+                    }
+                    int nx = x + dx;
+                    int ny = y + dy;
+                    if(nx < 0 || ny < 0 || nx >= width || ny >= height || blocked[index(nx, ny)]){
+                        continue;
+                    }
+                    double distance = dx * dx + dy * dy;
+                    if(distance < bestDistance){
+                        bestDistance = distance;
+                        best = index(nx, ny);
+                    }
+                }
+            }
+            if(best >= 0){
+                return best;
+            }
+        }
+        return -1;
+    }
+
+    private void push(int cell, double key){
+        int i = heapSize++;
+        while(i > 0){
+            int parent = (i - 1) >>> 1;
+            if(heapKeys[parent] <= key){
+                break;
+            }
+            heapCells[i] = heapCells[parent];
+            heapKeys[i] = heapKeys[parent];
+            i = parent;
+        }
+        heapCells[i] = cell;
+        heapKeys[i] = key;
+    }
+
+    private int pop(){
+        int top = heapCells[0];
+        heapSize--;
+        int cell = heapCells[heapSize];
+        double key = heapKeys[heapSize];
+        int i = 0;
+        while(true){
+            int child = 2 * i + 1;
+            if(child >= heapSize){
+                break;
+            }
+            if(child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]){
+                child++;
+            }
+            if(heapKeys[child] >= key){
+                break;
+            }
+            heapCells[i] = heapCells[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+        heapCells[i] = cell;
+        heapKeys[i] = key;
+        return top;
+    }
+
+    private int index(int x, int y){
+        return y * width + x;
+    }
+
+    // Cell holding a field point, points off the field clamp to the edge
+    private int cellAt(double x, double y){
+        int cellX = Math.min(Math.max((int) Math.floor(x / cellSize), 0), width - 1);
+        int cellY = Math.min(Math.max((int) Math.floor(y / cellSize), 0), height - 1);
+        return index(cellX, cellY);
+    }
+
+    private double centerX(int cell){
+        return (cell % width + 0.5) * cellSize;
+    }
+
+    private double centerY(int cell){
+        return (cell / width + 0.5) * cellSize;
+    }
+
+    // Get methods
+    public boolean isBlocked(double x, double y){
+        return blocked[cellAt(x, y)];
+    }
+
+    public double getClearance(double x, double y){
+        return clearance[cellAt(x, y)];
+    }
+
+}
@@ -0,0 +1,115 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+
+/* Swerve kinematics for our four modules on a fixed rectangle, front left, front right,
+back left, back right like kDriveKinematics. Everything is worked out on primitives into
+arrays the caller owns, with the module loops written out, so there is no matrix library
+and nothing gets allocated per call. Matches SwerveDriveKinematics: inverse kinematics
+keeps the last angles when the robot is told to stop, and forward kinematics is the same
+least squares solution, with the pseudo inverse worked out once up front. */
+public class FixedSwerveKinematics {
+
+    // Module positions from robot center, +x forward and +y left
+    private final double x0, y0, x1, y1, x2, y2, x3, y3;
+
+    // Pseudo inverse rows, vx, vy and omega from the 8 module velocity components (vx0, vy0, vx1, ...)
+    private final double[] vxRow = new double[8];
+    private final double[] vyRow = new double[8];
+    private final double[] omegaRow = new double[8];
+
+    // Class constructor, same module layout as DriveConstants.kDriveKinematics
+    public FixedSwerveKinematics(double wheelBase, double trackWidth){
+        x0 = wheelBase / 2;  y0 = trackWidth / 2;   // Front left
+        x1 = wheelBase / 2;  y1 = -trackWidth / 2;  // Front right
+        x2 = -wheelBase / 2; y2 = trackWidth / 2;   // Back left
+        x3 = -wheelBase / 2; y3 = -trackWidth / 2;  // Back right
+        computePseudoInverse(new double[] {x0, x1, x2, x3}, new double[] {y0, y1, y2, y3});
+    }
+
+    /* Inverse kinematics rows are [1 0 -y] and [0 1 x] per module, pseudo inverse is
+    (MtM)^-1 Mt. MtM is only 3x3 so it's inverted directly. */
+    private void computePseudoInverse(double[] x, double[] y){
+        double sumX = 0, sumY = 0, sumR = 0;
+        for(int i = 0; i < 4; i++){
+            sumX += x[i];
+            sumY += y[i];
+            sumR += x[i] * x[i] + y[i] * y[i];
+        }
+
+        // MtM = [[4, 0, -sumY], [0, 4, sumX], [-sumY, sumX, sumR]]
+        double[][] m = {{4, 0, -sumY}, {0, 4, sumX}, {-sumY, sumX, sumR}};
+        double[][] inv = invert3(m);
+
+        for(int i = 0; i < 4; i++){
+            // Columns of Mt for module i, the vx row and the vy row of M
+            double[] colX = {1, 0, -y[i]};
+            double[] colY = {0, 1, x[i]};
+            vxRow[2 * i] = dot(inv[0], colX);
+            vxRow[2 * i + 1] = dot(inv[0], colY);
+            vyRow[2 * i] = dot(inv[1], colX);
+            vyRow[2 * i + 1] = dot(inv[1], colY);
+            omegaRow[2 * i] = dot(inv[2], colX);
+            omegaRow[2 * i + 1] = dot(inv[2], colY);
+        }
+    }
+
+    private static double dot(double[] a, double[] b){
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    private static double[][] invert3(double[][] m){
+        double a = m[0][0], b = m[0][1], c = m[0][2];
+        double d = m[1][0], e = m[1][1], f = m[1][2];
+        double g = m[2][0], h = m[2][1], i = m[2][2];
+        double det = a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+        return new double[][] {
+            {(e * i - f * h) / det, (c * h - b * i) / det, (b * f - c * e) / det},
+            {(f * g - d * i) / det, (a * i - c * g) / det, (c * d - a * f) / det},
+            {(d * h - e * g) / det, (b * g - a * h) / det, (a * e - b * d) / det}};
+    }
+
+    /* Chassis speeds to module speeds (m/s) and angles (rad). If the chassis is told to stop
+    the angles are left as they were so the wheels don't snap to zero. */
+    public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] angles){
+        if(vx == 0 && vy == 0 && omega == 0){
+            speeds[0] = 0; speeds[1] = 0; speeds[2] = 0; speeds[3] = 0;
+            return;
+        }
+
+        double vx0 = vx - omega * y0, vy0 = vy + omega * x0;
+        double vx1 = vx - omega * y1, vy1 = vy + omega * x1;
+        double vx2 = vx - omega * y2, vy2 = vy + omega * x2;
+        double vx3 = vx - omega * y3, vy3 = vy + omega * x3;
+
+        speeds[0] = Math.hypot(vx0, vy0); angles[0] = Math.atan2(vy0, vx0);
+        speeds[1] = Math.hypot(vx1, vy1); angles[1] = Math.atan2(vy1, vx1);
+        speeds[2] = Math.hypot(vx2, vy2); angles[2] = Math.atan2(vy2, vx2);
+        speeds[3] = Math.hypot(vx3, vy3); angles[3] = Math.atan2(vy3, vx3);
+    }
+
+    // Module speeds and angles to chassis speeds, out is {vx, vy, omega}
+    public void toChassisSpeeds(double[] speeds, double[] angles, double[] out){
+        double vx0 = speeds[0] * Math.cos(angles[0]), vy0 = speeds[0] * Math.sin(angles[0]);
+        double vx1 = speeds[1] * Math.cos(angles[1]), vy1 = speeds[1] * Math.sin(angles[1]);
+        double vx2 = speeds[2] * Math.cos(angles[2]), vy2 = speeds[2] * Math.sin(angles[2]);
+        double vx3 = speeds[3] * Math.cos(angles[3]), vy3 = speeds[3] * Math.sin(angles[3]);
+
+        out[0] = vxRow[0] * vx0 + vxRow[1] * vy0 + vxRow[2] * vx1 + vxRow[3] * vy1
+            + vxRow[4] * vx2 + vxRow[5] * vy2 + vxRow[6] * vx3 + vxRow[7] * vy3;
+        out[1] = vyRow[0] * vx0 + vyRow[1] * vy0 + vyRow[2] * vx1 + vyRow[3] * vy1
+            + vyRow[4] * vx2 + vyRow[5] * vy2 + vyRow[6] * vx3 + vyRow[7] * vy3;
+        out[2] = omegaRow[0] * vx0 + omegaRow[1] * vy0 + omegaRow[2] * vx1 + omegaRow[3] * vy1
+            + omegaRow[4] * vx2 + omegaRow[5] * vy2 + omegaRow[6] * vx3 + omegaRow[7] * vy3;
+    }
+
+    // Scale all module speeds down together if any is over the max, like desaturateWheelSpeeds
+    public static void desaturate(double[] speeds, double maxSpeed){
+        double highest = Math.max(Math.max(Math.abs(speeds[0]), Math.abs(speeds[1])), Math.max(Math.abs(speeds[2]), Math.abs(speeds[3])));
+        if(highest > maxSpeed){
+            double scale = maxSpeed / highest;
+            speeds[0] *= scale; speeds[1] *= scale; speeds[2] *= scale; speeds[3] *= scale;
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import frc.robot.util.Constants.DriveConstants;
+
+/* Holds or snaps the robot heading during teleop. A trapezoid profile walks a setpoint
+toward the goal heading the short way around, and the output is the profile velocity plus
+P on heading error and D on yaw rate error, using the gyro's own rate instead of a
+differenced angle. Works in radians on primitives so it can run every cycle without
+allocating, unlike ProfiledPIDController which builds a new profile each call. */
+public class HeadingController {
+
+    // Gains, the gain tuner doesn't search these. They can be set by hand in deploy/tuning/gains.properties,
+    // but a tuner run rewrites that file with only its own gains
+    private static final double kP = TunedGains.get("kPHeading", 4);
+    private static final double kD = TunedGains.get("kDHeading", 0.1);
+
+    private boolean active;
+    private double goal;
+    private double setpoint;
+    private double setpointVelocity;
+
+    // Stop holding, the driver has the rotation stick
+    public void reset(){
+        active = false;
+    }
+
+    /* Aim for a new goal heading. The profile starts from where the robot is now if it
+    wasn't already holding, otherwise it carries on from the current setpoint. */
+    public void setGoal(double goal, double yaw, double yawRate){
+        if(!active){
+            setpoint = yaw;
+            setpointVelocity = yawRate;
+            active = true;
+        }
+        this.goal = goal;
+    }
+
+    // Angular speed to hold the goal, advance the profile by dt first
+    public double calculate(double yaw, double yawRate, double dt){
+        double maxVelocity = DriveConstants.kHeadingMaxVelocityRadiansPerSecond;
+        double maxAcceleration = DriveConstants.kHeadingMaxAccelerationRadiansPerSecondSquared;
+
+        // Fastest speed that can still stop at the goal, then slew toward it
+        double remaining = Math.IEEEremainder(goal - setpoint, 2 * Math.PI);
+        double target = Math.copySign(Math.min(maxVelocity, Math.sqrt(2 * maxAcceleration * Math.abs(remaining))), remaining);
+        double change = maxAcceleration * dt;
+        setpointVelocity += Math.max(-change, Math.min(change, target - setpointVelocity));
+
+        // Land on the goal instead of dithering around it
+        if(Math.abs(remaining) <= Math.abs(setpointVelocity * dt)){
+            setpoint = goal;
+            setpointVelocity = 0;
+        }
+        else{
+            setpoint = Math.IEEEremainder(setpoint + setpointVelocity * dt, 2 * Math.PI);
+        }
+
+        double error = Math.IEEEremainder(setpoint - yaw, 2 * Math.PI);
+        double output = setpointVelocity + kP * error + kD * (setpointVelocity - yawRate);
+        double limit = DriveConstants.kTeleDriveMaxAngularSpeedRadiansPerSecond;
+        return Math.max(-limit, Math.min(limit, output));
+    }
+
+    // Get methods
+    public boolean isActive(){return active;}
+
+    public double getGoal(){return goal;}
+
+}
@@ -0,0 +1,30 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.util.List;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/* A trajectory that keeps the heading the robot should face separate from its direction of
+travel. Plain WPILib states only have the travel direction, so trajectories we build
+ourselves implement this, and of() finds the heading for any trajectory a follower gets. */
+public interface HolonomicHeading {
+
+    // Heading the robot should face at a time, in radians
+    double getHeading(double time);
+
+    /* Heading the follower should hold at a trajectory state. Our own trajectories say so
+    directly, PathPlanner states carry their own holonomic rotation, and plain WPILib
+    trajectories use the final pose heading just like SwerveControllerCommand does by default. */
+    static double of(Trajectory trajectory, Trajectory.State state){
+        if(trajectory instanceof HolonomicHeading){
+            return ((HolonomicHeading) trajectory).getHeading(state.timeSeconds);
+        }
+        if(state instanceof PathPlannerState){
+            return ((PathPlannerState) state).holonomicRotation.getRadians();
+        }
+        List<Trajectory.State> states = trajectory.getStates();
+        return states.get(states.size() - 1).poseMeters.getRotation().getRadians();
+    }
+
+}
@@ -0,0 +1,85 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/* Packs the measured and desired state of every swerve module into one double array
+so the whole drivetrain goes out as a single NetworkTables entry each cycle.
+
+Layout (version 1):
+  [0]  FPGA timestamp in seconds
+  [1]  layout version
+  [2]  module count
+  then kFieldsPerModule values per module in front left, front right, back left,
+  back right order, starting at kHeaderSize + module * kFieldsPerModule:
+  +0 drive position (m)      +1 drive velocity (m/s)
+  +2 turning position (rad)  +3 absolute encoder angle, read every odometry cycle (rad)
+  +4 desired speed (m/s)     +5 desired angle (rad)
+
+Dashboards and log tools can use the static get methods below to read it back. */
+public class ModuleTelemetry {
+
+    // Layout constants
+    public static final int kVersion = 1;
+    public static final int kHeaderSize = 3;
+    public static final int kFieldsPerModule = 6;
+
+    // Per module field offsets
+    public static final int kDrivePosition = 0;
+    public static final int kDriveVelocity = 1;
+    public static final int kTurningPosition = 2;
+    public static final int kAbsoluteAngle = 3;
+    public static final int kDesiredSpeed = 4;
+    public static final int kDesiredAngle = 5;
+
+    // Packed values reused every cycle
+    private final double[] packed;
+
+    // Single entry for the whole drivetrain
+    private final NetworkTableEntry entry;
+
+    // Class constructor
+    public ModuleTelemetry(String table, String key, int modules){
+        packed = new double[kHeaderSize + modules * kFieldsPerModule];
+        packed[1] = kVersion;
+        packed[2] = modules;
+        entry = NetworkTableInstance.getDefault().getTable(table).getEntry(key);
+    }
+
+    // Fill in one module's values
+    public void setModule(int module, double drivePosition, double driveVelocity, double turningPosition,
+    double absoluteAngle, double desiredSpeed, double desiredAngle){
+        int base = kHeaderSize + module * kFieldsPerModule;
+        packed[base + kDrivePosition] = drivePosition;
+        packed[base + kDriveVelocity] = driveVelocity;
+        packed[base + kTurningPosition] = turningPosition;
+        packed[base + kAbsoluteAngle] = absoluteAngle;
+        packed[base + kDesiredSpeed] = desiredSpeed;
+        packed[base + kDesiredAngle] = desiredAngle;
+    }
+
+    // Stamp and send everything as one entry
+    public void publish(double timestamp){
+        packed[0] = timestamp;
+        entry.setDoubleArray(packed);
+    }
+
+    //------------------------------------D-E-C-O-D-E-R------------------------------------//
+
+    // True if an array looks like a packed array this decoder understands
+    public static boolean isValid(double[] packed){
+        return packed != null && packed.length >= kHeaderSize && (int) packed[1] == kVersion
+            && packed.length == kHeaderSize + (int) packed[2] * kFieldsPerModule;
+    }
+
+    public static double getTimestamp(double[] packed){return packed[0];}
+
+    public static int getModuleCount(double[] packed){return (int) packed[2];}
+
+    // Read one field of one module, field is one of the offsets above
+    public static double get(double[] packed, int module, int field){
+        return packed[kHeaderSize + module * kFieldsPerModule + field];
+    }
+
+}
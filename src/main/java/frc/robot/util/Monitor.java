@@ -2,22 +2,161 @@
 
 package frc.robot.util;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.util.Constants.PowerConstants;
 
 public class Monitor {
 
     // Create PDP object
     PowerDistribution PDP = new PowerDistribution();
 
+    // Background poller so CAN reads never block the main loop
+    private final Notifier poller = new Notifier(this::poll);
+
+    // Guards every cached value below
+    private final Object lock = new Object();
+
+    // Cached values from the last poll
+    private double sysVoltage;
+    private double sysCurrent;
+    private double sysTemperature;
+    private double sampleTimestamp;
+    private final double[] motorCurrents = new double[PowerConstants.kSwerveMotorChannels.length];
+
+    // Poller thread scratch space for motor currents
+    private final double[] pollCurrents = new double[PowerConstants.kSwerveMotorChannels.length];
+
+    // Main thread copy of motor currents for reporting
+    private final double[] reportCurrents = new double[PowerConstants.kSwerveMotorChannels.length];
+
+    // Recent voltage and current history for brownout prediction
+    private final double[] voltageHistory = new double[PowerConstants.kTrendSamples];
+    private final double[] currentHistory = new double[PowerConstants.kTrendSamples];
+    private final double[] timeHistory = new double[PowerConstants.kTrendSamples];
+    private int historyCount;
+    private int historyHead;
+
+    // Brownout prediction results
+    private double predictedVoltage = 12;
+    private boolean brownoutPredicted;
+
     // Class constructor
-    public Monitor(){}
+    public Monitor(){
+        poller.setName("Monitor");
+        poller.startPeriodic(PowerConstants.kPollPeriodSeconds);
+    }
+
+    // Runs on the poller thread, does all of the blocking CAN reads
+    private void poll(){
+
+        double voltage = PDP.getVoltage();
+        double current = PDP.getTotalCurrent();
+        double temperature = PDP.getTemperature();
+        for(int i = 0; i < pollCurrents.length; i++){
+            pollCurrents[i] = PDP.getCurrent(PowerConstants.kSwerveMotorChannels[i]);
+        }
+        double timestamp = Timer.getFPGATimestamp();
+
+        synchronized(lock){
+            System.arraycopy(pollCurrents, 0, motorCurrents, 0, motorCurrents.length);
+            sysVoltage = voltage;
+            sysCurrent = current;
+            sysTemperature = temperature;
+            sampleTimestamp = timestamp;
+
+            // Save sample in the trend ring buffer
+            voltageHistory[historyHead] = voltage;
+            currentHistory[historyHead] = current;
+            timeHistory[historyHead] = timestamp;
+            historyHead = (historyHead + 1) % voltageHistory.length;
+            historyCount = Math.min(historyCount + 1, voltageHistory.length);
+
+            predictBrownout();
+        }
+    }
+
+    /* Fit the battery as V = Voc - R * I over the recent samples, then push the current
+    forward along its own trend and see where the voltage would end up. Also extrapolate
+    the raw voltage trend and keep whichever is lower. Must be called while holding lock. */
+    private void predictBrownout(){
+
+        if(historyCount < 3){
+            predictedVoltage = sysVoltage;
+            brownoutPredicted = false;
+            return;
+        }
+
+        // Sums for current vs voltage and current vs time least squares fits
+        double meanI = 0, meanV = 0, meanT = 0;
+        for(int i = 0; i < historyCount; i++){
+            meanI += currentHistory[i];
+            meanV += voltageHistory[i];
+            meanT += timeHistory[i];
+        }
+        meanI /= historyCount;
+        meanV /= historyCount;
+        meanT /= historyCount;
 
+        double covIV = 0, varI = 0, covTI = 0, covTV = 0, varT = 0;
+        for(int i = 0; i < historyCount; i++){
+            double dI = currentHistory[i] - meanI;
+            double dV = voltageHistory[i] - meanV;
+            double dT = timeHistory[i] - meanT;
+            covIV += dI * dV;
+            varI += dI * dI;
+            covTI += dT * dI;
+            covTV += dT * dV;
+            varT += dT * dT;
+        }
+
+        // Battery resistance, fall back to the nominal value when current has not moved enough
+        double resistance = varI > 1e-6 ? -covIV / varI : PowerConstants.kNominalBatteryResistanceOhms;
+        resistance = Math.max(resistance, PowerConstants.kNominalBatteryResistanceOhms);
+
+        double currentSlope = varT > 1e-9 ? covTI / varT : 0;
+        double voltageSlope = varT > 1e-9 ? covTV / varT : 0;
+
+        // Only care about current going up and voltage going down
+        double horizon = PowerConstants.kBrownoutHorizonSeconds;
+        double fromCurrent = sysVoltage - resistance * Math.max(currentSlope, 0) * horizon;
+        double fromVoltage = sysVoltage + Math.min(voltageSlope, 0) * horizon;
+
+        predictedVoltage = Math.min(fromCurrent, fromVoltage);
+        brownoutPredicted = predictedVoltage <= PowerConstants.kBrownoutVoltage;
+    }
+
+    // Get methods, all return the last cached values and never touch CAN
+    public double getVoltage(){synchronized(lock){return sysVoltage;}}
+
+    public double getTotalCurrent(){synchronized(lock){return sysCurrent;}}
+
+    public double getTemperature(){synchronized(lock){return sysTemperature;}}
+
+    public double getSampleTimestamp(){synchronized(lock){return sampleTimestamp;}}
+
+    public double getPredictedVoltage(){synchronized(lock){return predictedVoltage;}}
+
+    public boolean isBrownoutPredicted(){synchronized(lock){return brownoutPredicted;}}
+
+    // Current for a swerve motor, indexed like PowerConstants.kSwerveMotorChannels
+    public double getMotorCurrent(int motor){synchronized(lock){return motorCurrents[motor];}}
+
+    // Copy all swerve motor currents into a caller owned array
+    public void getMotorCurrents(double[] out){
+        synchronized(lock){
+            System.arraycopy(motorCurrents, 0, out, 0, motorCurrents.length);
+        }
+    }
+
+    // Report cached data, cheap enough to run on the main thread
     public void update(){
 
-        double sysVoltage = PDP.getVoltage();
-        double sysCurrent = PDP.getTotalCurrent();
-        double sysTemperature = PDP.getTemperature();
+        double sysVoltage = getVoltage();
+        double sysCurrent = getTotalCurrent();
+        double sysTemperature = getTemperature();
 
         // Check voltage
         if(sysVoltage <= 9){
@@ -30,6 +169,11 @@ public class Monitor {
             DriverStation.reportWarning("MINIMUM VOLTAGE: " + sysVoltage, true);
         }
 
+        // Check brownout prediction
+        if(isBrownoutPredicted()){
+            DriverStation.reportWarning("BROWNOUT PREDICTED: " + getPredictedVoltage(), false);
+        }
+
         // Check current draw
         if(sysCurrent >= 115){
             DriverStation.reportError("MAX CURRENT DRAW: " + sysCurrent, true);
@@ -47,7 +191,12 @@ public class Monitor {
         SmartDashboard.putNumber("Voltage", sysVoltage);
         SmartDashboard.putNumber("Current", sysCurrent);
         SmartDashboard.putNumber("PDP Temperature", sysTemperature);
+        SmartDashboard.putNumber("Predicted Voltage", getPredictedVoltage());
+        SmartDashboard.putBoolean("Brownout Predicted", isBrownoutPredicted());
+
+        getMotorCurrents(reportCurrents);
+        SmartDashboard.putNumberArray("Swerve Currents", reportCurrents);
 
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Holds the latest generated trajectory for every PathPlanner path in the deploy folder,
+by name. Paths load the first time they're asked for. reload() regenerates one path and
+swaps it in, and replacing an already loaded path bumps the version so anything built from
+the old trajectories knows to rebuild. A path that fails to load keeps whatever trajectory it
+had before, which covers reading a file while the editor is halfway through saving it.
+loadAll() loads every path in the folder at once on a small
+thread pool and reports how long each one took. Safe to use from any thread. */
+public class PathLibrary {
+
+    private static final String kExtension = ".path";
+
+    private final File directory;
+    private final PathConstraints constraints;
+    private final Map<String, PathPlannerTrajectory> paths = new ConcurrentHashMap<>();
+    private final AtomicInteger version = new AtomicInteger();
+
+    // Class constructor, every path gets the same constraints. Paths always come from the
+    // deploy pathplanner folder since that's the only place PathPlanner.loadPath reads from
+    public PathLibrary(PathConstraints constraints){
+        this.directory = new File(Filesystem.getDeployDirectory(), "pathplanner");
+        this.constraints = constraints;
+    }
+
+    // Latest trajectory for a path, null if it has never loaded
+    public PathPlannerTrajectory get(String name){
+        PathPlannerTrajectory path = paths.get(name);
+        if(path == null && reload(name)){
+            path = paths.get(name);
+        }
+        return path;
+    }
+
+    // Load every path in the folder in parallel, returns this so it can be chained where the library is made
+    public PathLibrary loadAll(){
+        long start = System.nanoTime();
+        File[] files = directory.listFiles((folder, file) -> file.endsWith(kExtension));
+        if(files == null || files.length == 0){
+            DriverStation.reportWarning("Path library: no paths in " + directory, false);
+            return this;
+        }
+
+        int threads = Math.min(files.length, Math.min(Runtime.getRuntime().availableProcessors(), AutoConstants.kPathLoaderThreads));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread loader = new Thread(runnable, "Path Loader");
+            loader.setDaemon(true);
+            return loader;
+        });
+        List<Future<String>> reports = new ArrayList<>();
+        for(File file : files){
+            String name = file.getName().substring(0, file.getName().length() - kExtension.length());
+            reports.add(pool.submit(() -> {
+                long fileStart = System.nanoTime();
+                return String.format("%s %s in %.1f ms", reload(name) ? "loaded" : "failed", name, (System.nanoTime() - fileStart) / 1e6);
+            }));
+        }
+        pool.shutdown();
+
+        // Report in file order once they're all done
+        for(Future<String> report : reports){
+            try{
+                DriverStation.reportWarning("Path library: " + report.get(), false);
+            } catch(ExecutionException e){
+                DriverStation.reportError("Path library: " + e.getCause(), false);
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        DriverStation.reportWarning(String.format("Path library: %d paths on %d threads in %.1f ms", files.length, threads, (System.nanoTime() - start) / 1e6), false);
+        return this;
+    }
+
+    // Regenerate one path from its file, returns false and keeps the old one if that fails
+    public boolean reload(String name){
+        PathPlannerTrajectory path;
+        try{
+            path = PathPlanner.loadPath(name, constraints);
+        } catch(RuntimeException e){
+            path = null;
+        }
+        if(path == null){
+            DriverStation.reportError("Path library: couldn't generate " + name, false);
+            return false;
+        }
+        if(paths.put(name, path) != null){
+            version.incrementAndGet();
+        }
+        return true;
+    }
+
+    // Get methods
+    public int getVersion(){
+        return version.get();
+    }
+
+    public File getDirectory(){
+        return directory;
+    }
+
+}
@@ -0,0 +1,108 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+
+/* Reference vs actual pose samples for one path and the tracking error stats worked out
+from them. Errors are split along the reference direction of travel: along track error is
+how far the robot lags behind the reference (negative when ahead) and cross track error is
+how far it sits off to the side. Samples go into preallocated arrays so recording every
+cycle never allocates. */
+public class PathMetrics {
+
+    // Stat indexes
+    public static final int kRmsCrossTrack = 0;
+    public static final int kMaxCrossTrack = 1;
+    public static final int kRmsAlongTrack = 2;
+    public static final int kMaxAlongTrack = 3;
+    public static final int kMeanAlongTrack = 4;
+    public static final int kRmsHeading = 5;
+    public static final int kMaxHeading = 6;
+    public static final int kFinalPosition = 7;
+    public static final int kFinalHeading = 8;
+    public static final int kStatCount = 9;
+
+    private final double[] times;
+    private final double[] crossTrack;
+    private final double[] alongTrack;
+    private final double[] heading;
+    private int count;
+    private boolean overflowed;
+
+    // Last sample's errors for the final stats, kept even once the arrays are full
+    private double lastPositionError;
+    private double lastHeadingError;
+
+    // Class constructor
+    public PathMetrics(int capacity){
+        times = new double[capacity];
+        crossTrack = new double[capacity];
+        alongTrack = new double[capacity];
+        heading = new double[capacity];
+    }
+
+    // Forget every sample
+    public void clear(){
+        count = 0;
+        overflowed = false;
+        lastPositionError = 0;
+        lastHeadingError = 0;
+    }
+
+    /* Record one cycle. Reference direction is the trajectory's direction of travel, reference
+    heading is where the robot should be facing. Samples past capacity are dropped. */
+    public void add(double time, double refX, double refY, double refDirection, double refHeading,
+    double actualX, double actualY, double actualHeading){
+        double dx = actualX - refX;
+        double dy = actualY - refY;
+        double headingError = Math.IEEEremainder(actualHeading - refHeading, 2 * Math.PI);
+        lastPositionError = Math.hypot(dx, dy);
+        lastHeadingError = Math.abs(headingError);
+
+        if(count >= times.length){
+            overflowed = true;
+            return;
+        }
+
+        double cos = Math.cos(refDirection);
+        double sin = Math.sin(refDirection);
+        times[count] = time;
+        alongTrack[count] = -(dx * cos + dy * sin);
+        crossTrack[count] = -dx * sin + dy * cos;
+        heading[count] = headingError;
+        count++;
+    }
+
+    // Work out every stat into out, indexed by the constants above
+    public void compute(double[] out){
+        double crossSq = 0, crossMax = 0;
+        double alongSq = 0, alongMax = 0, alongSum = 0;
+        double headingSq = 0, headingMax = 0;
+
+        for(int i = 0; i < count; i++){
+            crossSq += crossTrack[i] * crossTrack[i];
+            crossMax = Math.max(crossMax, Math.abs(crossTrack[i]));
+            alongSq += alongTrack[i] * alongTrack[i];
+            alongMax = Math.max(alongMax, Math.abs(alongTrack[i]));
+            alongSum += alongTrack[i];
+            headingSq += heading[i] * heading[i];
+            headingMax = Math.max(headingMax, Math.abs(heading[i]));
+        }
+
+        int n = Math.max(count, 1);
+        out[kRmsCrossTrack] = Math.sqrt(crossSq / n);
+        out[kMaxCrossTrack] = crossMax;
+        out[kRmsAlongTrack] = Math.sqrt(alongSq / n);
+        out[kMaxAlongTrack] = alongMax;
+        out[kMeanAlongTrack] = alongSum / n;
+        out[kRmsHeading] = Math.sqrt(headingSq / n);
+        out[kMaxHeading] = headingMax;
+        out[kFinalPosition] = lastPositionError;
+        out[kFinalHeading] = lastHeadingError;
+    }
+
+    // Get methods
+    public int size(){return count;}
+
+    public boolean hasOverflowed(){return overflowed;}
+
+}
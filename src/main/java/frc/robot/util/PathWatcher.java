@@ -0,0 +1,77 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Watches a path library's folder and reloads only the .path files that change, on its own
+thread. Editors tend to write a file in a few steps, so changes are gathered until the folder
+has been quiet for a short time before anything reloads. Meant for simulation, where the
+deploy folder is the one PathPlanner saves into. */
+public class PathWatcher {
+
+    private static final String kExtension = ".path";
+
+    private final PathLibrary library;
+    private final Thread thread;
+
+    // Class constructor
+    public PathWatcher(PathLibrary library){
+        this.library = library;
+        thread = new Thread(this::watch, "Path Watcher");
+        thread.setDaemon(true);
+    }
+
+    // Start watching
+    public void start(){
+        thread.start();
+    }
+
+    private void watch(){
+        Path directory = library.getDirectory().toPath();
+        try(WatchService service = FileSystems.getDefault().newWatchService()){
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            long debounce = (long) (AutoConstants.kHotReloadDebounceSeconds * 1000);
+            Set<String> changed = new LinkedHashSet<>();
+
+            while(true){
+
+                // Block for the first change, then keep gathering until things go quiet
+                WatchKey key = service.take();
+                while(key != null){
+                    for(WatchEvent<?> event : key.pollEvents()){
+                        String file = event.context().toString();
+                        if(file.endsWith(kExtension)){
+                            changed.add(file.substring(0, file.length() - kExtension.length()));
+                        }
+                    }
+                    key.reset();
+                    key = service.poll(debounce, TimeUnit.MILLISECONDS);
+                }
+
+                for(String name : changed){
+                    long start = System.nanoTime();
+                    if(library.reload(name)){
+                        DriverStation.reportWarning(String.format("Path watcher: reloaded %s in %.1f ms", name, (System.nanoTime() - start) / 1e6), false);
+                    }
+                }
+                changed.clear();
+            }
+        } catch(IOException e){
+            DriverStation.reportError("Path watcher: can't watch " + directory + ": " + e.getMessage(), false);
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
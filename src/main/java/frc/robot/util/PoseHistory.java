@@ -0,0 +1,127 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+
+/* Fixed size ring buffer of timestamped poses kept in primitive arrays. Samples must be
+added in time order, lookups binary search the buffer and interpolate between the two
+nearest samples without allocating anything. */
+public class PoseHistory {
+
+    // Indexes into lookup output arrays
+    public static final int kX = 0;
+    public static final int kY = 1;
+    public static final int kTheta = 2;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] thetas;
+    private final double[] times;
+
+    // Oldest sample index and number of samples stored
+    private int head;
+    private int size;
+
+    // Class constructor
+    public PoseHistory(int capacity){
+        xs = new double[capacity];
+        ys = new double[capacity];
+        thetas = new double[capacity];
+        times = new double[capacity];
+    }
+
+    // Add a new pose, overwrites the oldest one once full
+    public void add(double timestamp, double x, double y, double theta){
+
+        // Drop out of order samples, lookups rely on sorted timestamps
+        if(size > 0 && timestamp <= times[index(size - 1)]){
+            return;
+        }
+
+        int i;
+        if(size < times.length){
+            i = index(size);
+            size++;
+        }
+        else{
+            i = head;
+            head = (head + 1) % times.length;
+        }
+
+        xs[i] = x;
+        ys[i] = y;
+        thetas[i] = theta;
+        times[i] = timestamp;
+    }
+
+    // Forget every sample, used when odometry is reset
+    public void clear(){
+        head = 0;
+        size = 0;
+    }
+
+    // Get methods
+    public int size(){return size;}
+
+    public int capacity(){return times.length;}
+
+    public double getOldestTimestamp(){return size == 0 ? Double.NaN : times[head];}
+
+    public double getNewestTimestamp(){return size == 0 ? Double.NaN : times[index(size - 1)];}
+
+    /* Write the pose at a timestamp into out as {x, y, theta}. Times outside the buffer are
+    clamped to the oldest or newest sample. Returns false if the buffer is empty. */
+    public boolean sample(double timestamp, double[] out){
+
+        if(size == 0){
+            return false;
+        }
+
+        // Clamp to the ends of the buffer
+        if(timestamp <= times[head]){
+            copy(head, out);
+            return true;
+        }
+        int newest = index(size - 1);
+        if(timestamp >= times[newest]){
+            copy(newest, out);
+            return true;
+        }
+
+        // Binary search for the last sample at or before timestamp, in logical order
+        int low = 0;
+        int high = size - 1;
+        while(high - low > 1){
+            int mid = (low + high) >>> 1;
+            if(times[index(mid)] <= timestamp){
+                low = mid;
+            }
+            else{
+                high = mid;
+            }
+        }
+
+        int a = index(low);
+        int b = index(high);
+        double t = (timestamp - times[a]) / (times[b] - times[a]);
+
+        out[kX] = xs[a] + (xs[b] - xs[a]) * t;
+        out[kY] = ys[a] + (ys[b] - ys[a]) * t;
+
+        // Interpolate heading the short way around
+        double dTheta = Math.IEEEremainder(thetas[b] - thetas[a], 2 * Math.PI);
+        out[kTheta] = Math.IEEEremainder(thetas[a] + dTheta * t, 2 * Math.PI);
+        return true;
+    }
+
+    private void copy(int i, double[] out){
+        out[kX] = xs[i];
+        out[kY] = ys[i];
+        out[kTheta] = thetas[i];
+    }
+
+    // Convert logical position (0 = oldest) to array index
+    private int index(int logical){
+        return (head + logical) % times.length;
+    }
+
+}
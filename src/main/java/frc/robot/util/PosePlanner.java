@@ -0,0 +1,173 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Plans from one pose to another around the field obstacles on its own thread. The grid
+search gives straight segments, a spline is run through their corners, the heading is
+turned from the start heading to the goal heading evenly along the path, and the result is
+retimed to what the modules can follow. The spline can swing wide of a corner, so it's checked
+against the grid, and wherever it cuts into a blocked cell the straight segment it strayed
+from gets its midpoint added as another corner before trying again. The grid and its distance
+field are built once when the planner is made, and a few searches are run right away so the
+first real plan doesn't pay for warming up. Planning only happens on the planner's thread,
+which is what keeps the shared point array safe. */
+public class PosePlanner {
+
+    // Most corners a smoothed path can have
+    private static final int kMaxPoints = 64;
+
+    private final FieldGrid grid = new FieldGrid();
+    private final double[] points = new double[kMaxPoints * 2];
+    private final ExecutorService thread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread planner = new Thread(runnable, "Pose Planner");
+        planner.setDaemon(true);
+        return planner;
+    });
+
+    // Time the last plan took, for telemetry
+    private volatile double lastPlanMillis;
+
+    // Class constructor
+    public PosePlanner(){
+        thread.submit(() -> {
+            for(int i = 0; i < 20; i++){
+                grid.findPath(1, 1, 15, 7, points);
+            }
+        });
+    }
+
+    // Plan in the background, completes with null if the goal can't be reached or the robot is already there
+    public CompletableFuture<Trajectory> planAsync(Pose2d start, Pose2d goal){
+        return CompletableFuture.supplyAsync(() -> plan(start, goal), thread);
+    }
+
+    // Plan on the planner's thread
+    private Trajectory plan(Pose2d start, Pose2d goal){
+        long startTime = System.nanoTime();
+        try{
+            int count = grid.findPath(start.getX(), start.getY(), goal.getX(), goal.getY(), points);
+            if(count < 2 || start.getTranslation().getDistance(goal.getTranslation()) < AutoConstants.kPlannerCellMeters){
+                return null;
+            }
+            List<Translation2d> corners = new ArrayList<>(count);
+            for(int i = 0; i < count; i++){
+                corners.add(new Translation2d(points[i * 2], points[i * 2 + 1]));
+            }
+
+            // Spline through the corners, adding one wherever it cuts into a blocked cell
+            Trajectory path = null;
+            for(int attempt = 0; attempt <= AutoConstants.kPlannerMaxRefinements; attempt++){
+                Trajectory candidate = spline(corners);
+                if(candidate == null){
+                    break;
+                }
+                int segment = blockedSegment(candidate, corners);
+                if(segment < 0){
+                    path = candidate;
+                    break;
+                }
+                corners.add(segment + 1, corners.get(segment).interpolate(corners.get(segment + 1), 0.5));
+            }
+            if(path == null){
+                return null;
+            }
+
+            // Heading moves with distance travelled, the short way around
+            List<Trajectory.State> states = path.getStates();
+            double[] distance = new double[states.size()];
+            for(int i = 1; i < distance.length; i++){
+                distance[i] = distance[i - 1] + states.get(i - 1).poseMeters.getTranslation().getDistance(states.get(i).poseMeters.getTranslation());
+            }
+            double startHeading = start.getRotation().getRadians();
+            double turn = Math.IEEEremainder(goal.getRotation().getRadians() - startHeading, 2 * Math.PI);
+            double total = distance[distance.length - 1];
+            double[] headings = new double[distance.length];
+            for(int i = 0; i < headings.length; i++){
+                headings[i] = startHeading + turn * (total > 0 ? distance[i] / total : 1);
+            }
+
+            return TrajectoryRetimer.retime(new RetimedTrajectory(states, headings));
+        }
+        finally{
+            lastPlanMillis = (System.nanoTime() - startTime) / 1e6;
+        }
+    }
+
+    /* Spline through every corner, tangents at the ends point along the first and last segments.
+    Null when the spline fails, the generator hands back a single state at the origin then. */
+    private static Trajectory spline(List<Translation2d> corners){
+        int last = corners.size() - 1;
+        Translation2d startDirection = corners.get(1).minus(corners.get(0));
+        Translation2d endDirection = corners.get(last).minus(corners.get(last - 1));
+        Trajectory path = TrajectoryGenerator.generateTrajectory(
+            new Pose2d(corners.get(0), new Rotation2d(startDirection.getX(), startDirection.getY())),
+            corners.subList(1, last),
+            new Pose2d(corners.get(last), new Rotation2d(endDirection.getX(), endDirection.getY())),
+            new TrajectoryConfig(AutoConstants.kRetimeMaxSpeedMetersPerSecond, AutoConstants.kRetimeMaxAccelerationMetersPerSecondSquared));
+        if(path.getStates().size() < 2 || path.getTotalTimeSeconds() <= 0){
+            return null;
+        }
+        return path;
+    }
+
+    /* Corner segment the spline strayed from where it first cuts into a blocked cell, -1 if it
+    stays clear. A robot starting pressed against something is let out of the blocked cells
+    it starts in. */
+    private int blockedSegment(Trajectory path, List<Translation2d> corners){
+        List<Trajectory.State> states = path.getStates();
+        Translation2d from = states.get(0).poseMeters.getTranslation();
+        boolean leaving = grid.isBlocked(from.getX(), from.getY());
+        for(int i = 1; i < states.size(); i++){
+            Translation2d to = states.get(i).poseMeters.getTranslation();
+            if(leaving){
+                leaving = grid.isBlocked(to.getX(), to.getY());
+            }
+            else if(!grid.lineOfSight(from.getX(), from.getY(), to.getX(), to.getY())){
+                return nearestSegment(corners, to);
+            }
+            from = to;
+        }
+        return -1;
+    }
+
+    // Corner segment closest to a point
+    private static int nearestSegment(List<Translation2d> corners, Translation2d point){
+        int nearest = 0;
+        double nearestDistance = Double.MAX_VALUE;
+        for(int i = 0; i < corners.size() - 1; i++){
+            Translation2d a = corners.get(i);
+            Translation2d ab = corners.get(i + 1).minus(a);
+            Translation2d ap = point.minus(a);
+            double lengthSquared = ab.getX() * ab.getX() + ab.getY() * ab.getY();
+            double t = lengthSquared > 0 ? Math.min(Math.max((ap.getX() * ab.getX() + ap.getY() * ab.getY()) / lengthSquared, 0), 1) : 0;
+            double distance = ap.getDistance(ab.times(t));
+            if(distance < nearestDistance){
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    // Get methods
+    public FieldGrid getGrid(){
+        return grid;
+    }
+
+    public double getLastPlanMillis(){
+        return lastPlanMillis;
+    }
+
+}
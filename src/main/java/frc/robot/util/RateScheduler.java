@@ -0,0 +1,56 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.util.Constants.RateConstants;
+
+// Runs tasks at their own rates on top of TimedRobot.addPeriodic
+public class RateScheduler {
+
+    // Anything that wants its own rate groups implements this
+    public interface Participant {
+        void registerRates(RateScheduler scheduler);
+    }
+
+    // Robot that owns the main loop
+    private final TimedRobot robot;
+
+    // Next free main loop slot for spread tasks
+    private int nextSlot = 1;
+
+    // Class constructor
+    public RateScheduler(TimedRobot robot){
+        this.robot = robot;
+    }
+
+    // Run a task at a given period with no offset, use for high priority work like odometry
+    public void schedule(Runnable task, double periodSeconds){
+        schedule(task, periodSeconds, 0.0);
+    }
+
+    // Run a task at a given period and phase offset
+    public void schedule(Runnable task, double periodSeconds, double offsetSeconds){
+        robot.addPeriodic(task, periodSeconds, offsetSeconds);
+    }
+
+    /* Run a low priority task at a given period, giving it its own main loop slot so
+    no two spread tasks land in the same cycle (as long as there are fewer spread tasks
+    than slots in the fastest spread period). */
+    public void scheduleSpread(Runnable task, double periodSeconds){
+
+        // Number of main loop cycles that fit in this period
+        int slots = Math.max(1, (int) Math.round(periodSeconds / RateConstants.kMainLoopPeriodSeconds));
+
+        // Take the next slot and wrap it into this period
+        double offsetSeconds = (nextSlot % slots) * RateConstants.kMainLoopPeriodSeconds;
+        nextSlot++;
+
+        schedule(task, periodSeconds, offsetSeconds);
+    }
+
+    // Let a participant register all of its rate groups
+    public void register(Participant participant){
+        participant.registerRates(this);
+    }
+
+}
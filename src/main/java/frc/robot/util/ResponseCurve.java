@@ -0,0 +1,45 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+
+/* Deadband plus expo response curve for a joystick axis, baked into a lookup table once so
+every cycle is just an index and a lerp. Past the deadband the input is rescaled to 0..1
+and shaped as expo * u^3 + (1 - expo) * u, so expo 0 is linear and expo 1 is pure cubic.
+The curve is odd, negative inputs mirror positive ones. */
+public class ResponseCurve {
+
+    private final double[] table;
+    private final double step;
+
+    // Class constructor, size is the number of table points from 0 to 1
+    public ResponseCurve(double deadband, double expo, int size){
+        table = new double[size];
+        step = 1.0 / (size - 1);
+        for(int i = 0; i < size; i++){
+            table[i] = shape(i * step, deadband, expo);
+        }
+    }
+
+    // Exact curve for a positive input, only used to fill the table
+    private static double shape(double input, double deadband, double expo){
+        if(input <= deadband){
+            return 0;
+        }
+        double u = Math.min((input - deadband) / (1 - deadband), 1);
+        return expo * u * u * u + (1 - expo) * u;
+    }
+
+    // Look up an axis value between -1 and 1
+    public double apply(double input){
+        double magnitude = Math.min(Math.abs(input), 1);
+        double index = magnitude / step;
+        int low = (int) index;
+        if(low >= table.length - 1){
+            return Math.copySign(table[table.length - 1], input);
+        }
+        double fraction = index - low;
+        double output = table[low] + (table[low + 1] - table[low]) * fraction;
+        return Math.copySign(output, input);
+    }
+
+}
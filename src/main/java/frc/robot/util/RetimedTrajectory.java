@@ -0,0 +1,53 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.util.List;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/* A trajectory from TrajectoryRetimer. Plain WPILib states can't carry the holonomic heading
+a PathPlanner path had, so the heading at each state is kept alongside and looked up by
+time. Followers get it through HolonomicHeading.of like any other trajectory. */
+public class RetimedTrajectory extends Trajectory implements HolonomicHeading {
+
+    private final double[] times;
+    private final double[] headings;
+
+    // Class constructor, headings in radians one per state
+    public RetimedTrajectory(List<State> states, double[] headings){
+        super(states);
+        this.headings = headings;
+        times = new double[states.size()];
+        for(int i = 0; i < times.length; i++){
+            times[i] = states.get(i).timeSeconds;
+        }
+    }
+
+    // Heading the robot should face at a time, interpolated the short way around
+    @Override
+    public double getHeading(double time){
+        if(time <= times[0]){
+            return headings[0];
+        }
+        int last = times.length - 1;
+        if(time >= times[last]){
+            return headings[last];
+        }
+
+        // Binary search for the state at or before time
+        int low = 0;
+        int high = last;
+        while(high - low > 1){
+            int mid = (low + high) >>> 1;
+            if(times[mid] <= time){
+                low = mid;
+            }
+            else{
+                high = mid;
+            }
+        }
+        double span = times[high] - times[low];
+        double fraction = span > 0 ? (time - times[low]) / span : 0;
+        return headings[low] + Math.IEEEremainder(headings[high] - headings[low], 2 * Math.PI) * fraction;
+    }
+
+}
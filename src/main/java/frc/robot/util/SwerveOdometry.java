@@ -0,0 +1,193 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import frc.robot.util.Constants.DriveConstants;
+
+/* In place swerve odometry on primitive arrays. Each update takes every module's drive
+distance since last time, removes the part the gyro says came from rotation, and what's left
+should be the same translation for every module on a rigid robot. A module that disagrees
+with the median of the others by more than the tolerance is slipping (or being pushed
+sideways) and gets down weighted before the modules are averaged. The translation and gyro
+rotation are then applied with the exact pose exponential, so arcs don't cut corners. */
+public class SwerveOdometry {
+
+    // Module positions from robot center, +x forward and +y left, module order like kDriveKinematics
+    private final double[] moduleX = new double[4];
+    private final double[] moduleY = new double[4];
+
+    // Pose, heading is the gyro plus an offset like SwerveDriveOdometry
+    private double x;
+    private double y;
+    private double theta;
+    private double gyroOffset;
+    private double lastGyroAngle;
+
+    // Wheel positions at the last update
+    private final double[] lastPositions = new double[4];
+
+    // Per module translation this update and how much it was trusted
+    private final double[] moduleDx = new double[4];
+    private final double[] moduleDy = new double[4];
+    private final double[] weights = {1, 1, 1, 1};
+    private final double[] scratch = new double[4];
+
+    // Robot frame translation of the last update
+    private double lastDx;
+    private double lastDy;
+
+    // Class constructor, same module layout as DriveConstants.kDriveKinematics
+    public SwerveOdometry(double wheelBase, double trackWidth){
+        moduleX[0] = wheelBase / 2;  moduleY[0] = trackWidth / 2;   // Front left
+        moduleX[1] = wheelBase / 2;  moduleY[1] = -trackWidth / 2;  // Front right
+        moduleX[2] = -wheelBase / 2; moduleY[2] = trackWidth / 2;   // Back left
+        moduleX[3] = -wheelBase / 2; moduleY[3] = -trackWidth / 2;  // Back right
+    }
+
+    // Move to a new pose, wheel positions and gyro angle become the new baseline
+    public void resetPosition(double x, double y, double theta, double gyroAngle, double[] positions){
+        this.x = x;
+        this.y = y;
+        this.theta = theta;
+        gyroOffset = theta - gyroAngle;
+        lastGyroAngle = gyroAngle;
+        System.arraycopy(positions, 0, lastPositions, 0, 4);
+        for(int i = 0; i < 4; i++){
+            weights[i] = 1;
+        }
+    }
+
+    // Integrate one step from the gyro angle (rad) and module drive positions (m) and angles (rad)
+    public void update(double gyroAngle, double[] positions, double[] angles){
+        update(gyroAngle, positions, angles, 0, 0, false);
+    }
+
+    /* Same, but when every wheel is slipping together (useFallback) the step's robot frame
+    translation comes from the given fallback instead, like an IMU fused velocity times dt. */
+    public void update(double gyroAngle, double[] positions, double[] angles,
+    double fallbackDx, double fallbackDy, boolean useFallback){
+        double dTheta = Math.IEEEremainder(gyroAngle - lastGyroAngle, 2 * Math.PI);
+        lastGyroAngle = gyroAngle;
+
+        // Translation each module saw once rotation is taken out
+        int valid = 0;
+        for(int i = 0; i < 4; i++){
+            double distance = positions[i] - lastPositions[i];
+            lastPositions[i] = positions[i];
+
+            // A jump no wheel could make means the encoder was reset, skip that module this step
+            if(Math.abs(distance) > DriveConstants.kMaxModuleDeltaMeters){
+                weights[i] = 0;
+                moduleDx[i] = 0;
+                moduleDy[i] = 0;
+                continue;
+            }
+            moduleDx[i] = distance * Math.cos(angles[i]) + dTheta * moduleY[i];
+            moduleDy[i] = distance * Math.sin(angles[i]) - dTheta * moduleX[i];
+            weights[i] = 1;
+            valid++;
+        }
+
+        double dx = 0;
+        double dy = 0;
+        if(valid > 0){
+
+            // Median of the modules is the reference, one slipping wheel can't drag it
+            double medianDx = validMedian(moduleDx);
+            double medianDy = validMedian(moduleDy);
+            double tolerance = DriveConstants.kSlipToleranceMeters + DriveConstants.kSlipToleranceFraction * Math.hypot(medianDx, medianDy);
+
+            // Down weight modules by how far past the tolerance they are, then average
+            double weightSum = 0;
+            for(int i = 0; i < 4; i++){
+                if(weights[i] == 0){
+                    continue;
+                }
+                double residual = Math.hypot(moduleDx[i] - medianDx, moduleDy[i] - medianDy);
+                if(residual > tolerance){
+                    double ratio = tolerance / residual;
+                    weights[i] = ratio * ratio;
+                }
+                dx += weights[i] * moduleDx[i];
+                dy += weights[i] * moduleDy[i];
+                weightSum += weights[i];
+            }
+            dx /= weightSum;
+            dy /= weightSum;
+        }
+        if(useFallback){
+            dx = fallbackDx;
+            dy = fallbackDy;
+        }
+        lastDx = dx;
+        lastDy = dy;
+
+        // Pose exponential, sin(dTheta) / dTheta and (1 - cos(dTheta)) / dTheta with series near zero
+        double s;
+        double c;
+        if(Math.abs(dTheta) < 1e-9){
+            s = 1 - dTheta * dTheta / 6;
+            c = dTheta / 2;
+        }
+        else{
+            s = Math.sin(dTheta) / dTheta;
+            c = (1 - Math.cos(dTheta)) / dTheta;
+        }
+        double tx = dx * s - dy * c;
+        double ty = dx * c + dy * s;
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        x += tx * cos - ty * sin;
+        y += tx * sin + ty * cos;
+        theta = Math.IEEEremainder(gyroAngle + gyroOffset, 2 * Math.PI);
+    }
+
+    // Median over modules that were used this step
+    private double validMedian(double[] values){
+        int n = 0;
+        for(int i = 0; i < 4; i++){
+            if(weights[i] != 0){
+                scratch[n++] = values[i];
+            }
+        }
+
+        // Insertion sort, at most four values
+        for(int i = 1; i < n; i++){
+            double value = scratch[i];
+            int j = i - 1;
+            while(j >= 0 && scratch[j] > value){
+                scratch[j + 1] = scratch[j];
+                j--;
+            }
+            scratch[j + 1] = value;
+        }
+        return n % 2 == 1 ? scratch[n / 2] : (scratch[n / 2 - 1] + scratch[n / 2]) / 2;
+    }
+
+    // Get methods
+    public double getX(){return x;}
+
+    public double getY(){return y;}
+
+    public double getTheta(){return theta;}
+
+    // Robot frame translation of the last step
+    public double getLastDx(){return lastDx;}
+
+    public double getLastDy(){return lastDy;}
+
+    // How much each module was trusted last step, 1 is fully
+    public double getModuleWeight(int module){return weights[module];}
+
+    public boolean isSlipping(int module){return weights[module] < 0.5;}
+
+    public int getSlipCount(){
+        int count = 0;
+        for(int i = 0; i < 4; i++){
+            if(isSlipping(i)){
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
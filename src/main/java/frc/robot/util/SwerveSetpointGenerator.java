@@ -0,0 +1,152 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.ModuleConstants;
+
+/* Turns a desired chassis speed into the next module states the drivetrain can actually
+reach from the last ones. It walks from the previous chassis speed toward the desired one
+and binary searches the furthest point where every module's velocity change fits the drive
+acceleration limit and every moving module's heading change fits the steer rate limit.
+Modules flip drive direction instead of steering past 90 degrees, and a module still
+steering toward its angle has its drive speed cut by the cosine of what's left, so it
+doesn't push the wrong way while it turns. The limits are checked against the module states
+the previous chassis speed asks for, before that cut, so staying at the previous speed always
+passes and a module that's still steering can't hold the robot at its old speed. Previous
+state is kept in fields and everything works on primitives, so a step never allocates. */
+public class SwerveSetpointGenerator {
+
+    // Binary search steps, 2^-8 of the way is fine enough
+    private static final int kSearchSteps = 8;
+
+    private final FixedSwerveKinematics kinematics;
+
+    // Previous chassis speed, the module states it asks for, and the module states sent out
+    private double lastVx;
+    private double lastVy;
+    private double lastOmega;
+    private final double[] targetSpeeds = new double[4];
+    private final double[] targetAngles = new double[4];
+    private final double[] lastAngles = new double[4];
+
+    // Scratch for trial module states
+    private final double[] trialSpeeds = new double[4];
+    private final double[] trialAngles = new double[4];
+
+    // Class constructor
+    public SwerveSetpointGenerator(FixedSwerveKinematics kinematics){
+        this.kinematics = kinematics;
+    }
+
+    // Start from rest with the modules at the given angles
+    public void reset(double[] angles){
+        lastVx = 0;
+        lastVy = 0;
+        lastOmega = 0;
+        for(int i = 0; i < 4; i++){
+            targetSpeeds[i] = 0;
+            targetAngles[i] = angles[i];
+            lastAngles[i] = angles[i];
+        }
+    }
+
+    // Next feasible module speeds (m/s) and angles (rad) toward the desired chassis speed after dt seconds
+    public void generate(double vx, double vy, double omega, double dt, double[] speeds, double[] angles){
+
+        // Scale the whole chassis speed down if any module would be over max speed
+        kinematics.toModuleStates(vx, vy, omega, trialSpeeds, trialAngles);
+        double highest = Math.max(Math.max(trialSpeeds[0], trialSpeeds[1]), Math.max(trialSpeeds[2], trialSpeeds[3]));
+        if(highest > DriveConstants.kPhysicalMaxSpeedMetersPerSecond){
+            double scale = DriveConstants.kPhysicalMaxSpeedMetersPerSecond / highest;
+            vx *= scale;
+            vy *= scale;
+            omega *= scale;
+        }
+
+        /* Module velocities are linear in the chassis speed, so the acceleration limit gives the
+        furthest fraction directly from the biggest module velocity change. Only steering needs
+        the search below, which then starts from there instead of from all the way. */
+        kinematics.toModuleStates(vx - lastVx, vy - lastVy, omega - lastOmega, trialSpeeds, trialAngles);
+        double largestChange = Math.max(Math.max(trialSpeeds[0], trialSpeeds[1]), Math.max(trialSpeeds[2], trialSpeeds[3]));
+        double maxVelocityChange = ModuleConstants.kMaxDriveAccelerationMetersPerSecondSquared * dt;
+        double low = 0;
+        double high = largestChange > maxVelocityChange ? maxVelocityChange / largestChange : 1;
+        if(!isFeasible(vx, vy, omega, high, dt)){
+            for(int step = 0; step < kSearchSteps; step++){
+                double mid = (low + high) / 2;
+                if(isFeasible(vx, vy, omega, mid, dt)){
+                    low = mid;
+                }
+                else{
+                    high = mid;
+                }
+            }
+            high = low;
+        }
+        lastVx += (vx - lastVx) * high;
+        lastVy += (vy - lastVy) * high;
+        lastOmega += (omega - lastOmega) * high;
+
+        // Module states there, keeping last angles if the robot stops
+        kinematics.toModuleStates(lastVx, lastVy, lastOmega, targetSpeeds, targetAngles);
+
+        double maxSteer = ModuleConstants.kMaxSteerRateRadPerSec * dt;
+        for(int i = 0; i < 4; i++){
+            double speed = targetSpeeds[i];
+            double angle = targetAngles[i];
+
+            // Flip instead of steering more than 90 degrees
+            double error = Math.IEEEremainder(angle - lastAngles[i], 2 * Math.PI);
+            if(Math.abs(error) > Math.PI / 2){
+                angle = Math.IEEEremainder(angle + Math.PI, 2 * Math.PI);
+                speed = -speed;
+                error = Math.IEEEremainder(angle - lastAngles[i], 2 * Math.PI);
+            }
+
+            // Steer as far as the rate allows, drive only the part of the speed the wheel is lined up for
+            double steer = Math.max(-maxSteer, Math.min(maxSteer, error));
+            angle = Math.IEEEremainder(lastAngles[i] + steer, 2 * Math.PI);
+            speed *= Math.cos(error - steer);
+
+            speeds[i] = speed;
+            angles[i] = angle;
+            lastAngles[i] = angle;
+        }
+    }
+
+    /* Check a point fraction of the way from the last chassis speed to the desired one against
+    the module states the last chassis speed asks for. Module velocity vectors can't change by
+    more than the drive acceleration allows, and modules that are moving before and after can't
+    turn faster than the steer rate, allowing for a flip. */
+    private boolean isFeasible(double vx, double vy, double omega, double fraction, double dt){
+        double trialVx = lastVx + (vx - lastVx) * fraction;
+        double trialVy = lastVy + (vy - lastVy) * fraction;
+        double trialOmega = lastOmega + (omega - lastOmega) * fraction;
+        for(int i = 0; i < 4; i++){
+            trialAngles[i] = targetAngles[i];
+        }
+        kinematics.toModuleStates(trialVx, trialVy, trialOmega, trialSpeeds, trialAngles);
+
+        double maxVelocityChange = ModuleConstants.kMaxDriveAccelerationMetersPerSecondSquared * dt;
+        double maxSteer = ModuleConstants.kMaxSteerRateRadPerSec * dt;
+        for(int i = 0; i < 4; i++){
+            double lastX = targetSpeeds[i] * Math.cos(targetAngles[i]);
+            double lastY = targetSpeeds[i] * Math.sin(targetAngles[i]);
+            double trialX = trialSpeeds[i] * Math.cos(trialAngles[i]);
+            double trialY = trialSpeeds[i] * Math.sin(trialAngles[i]);
+            if(Math.hypot(trialX - lastX, trialY - lastY) > maxVelocityChange){
+                return false;
+            }
+
+            // Moving wheels have to steer there, stopped ones can swing freely
+            if(targetSpeeds[i] > DriveConstants.kSetpointMovingSpeed && trialSpeeds[i] > DriveConstants.kSetpointMovingSpeed){
+                double error = Math.abs(Math.IEEEremainder(trialAngles[i] - targetAngles[i], Math.PI));
+                if(error > maxSteer){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+}
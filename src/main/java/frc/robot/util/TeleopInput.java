@@ -0,0 +1,102 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.IOConstants;
+
+/* Teleop input stage. update() reads every axis and the button bits of both joysticks once
+into primitive fields, then runs the drive axes through the deadband and response curve
+tables and the slew rate limiters. Everything after that reads the snapshot, so one cycle
+sees one consistent set of inputs and nothing is boxed or allocated. */
+public class TeleopInput {
+
+    // Joystick ports
+    private final int leftPort;
+    private final int rightPort;
+
+    // Raw snapshot of this cycle
+    private final double[] leftAxes = new double[IOConstants.kMaxAxes];
+    private final double[] rightAxes = new double[IOConstants.kMaxAxes];
+    private int leftButtons;
+    private int rightButtons;
+
+    // Shaping
+    private final ResponseCurve driveCurve = new ResponseCurve(IOConstants.kDeadband, IOConstants.kDriveExpo, IOConstants.kResponseCurveSize);
+    private final ResponseCurve turningCurve = new ResponseCurve(IOConstants.kDeadband, IOConstants.kTurningExpo, IOConstants.kResponseCurveSize);
+    private final SlewRateLimiter xLimiter = new SlewRateLimiter(DriveConstants.kTeleDriveMaxAccelerationUnitsPerSecond);
+    private final SlewRateLimiter yLimiter = new SlewRateLimiter(DriveConstants.kTeleDriveMaxAccelerationUnitsPerSecond);
+    private final SlewRateLimiter turningLimiter = new SlewRateLimiter(DriveConstants.kTeleDriveMaxAngularAccelerationUnitsPerSecond);
+
+    // Shaped outputs of this cycle
+    private double xSpeed;
+    private double ySpeed;
+    private double turningSpeed;
+    private boolean turningInput;
+
+    // Class constructor
+    public TeleopInput(int leftPort, int rightPort){
+        this.leftPort = leftPort;
+        this.rightPort = rightPort;
+    }
+
+    // Sample both joysticks and shape the drive axes, call once per cycle
+    public void update(){
+        leftButtons = sample(leftPort, leftAxes);
+        rightButtons = sample(rightPort, rightAxes);
+
+        double x = driveCurve.apply(rightAxes[IOConstants.kDriveXAxis]);
+        double y = driveCurve.apply(rightAxes[IOConstants.kDriveYAxis]);
+        double turning = turningCurve.apply(rightAxes[IOConstants.kDriveRotationAxis]);
+        turningInput = turning != 0;
+
+        // Apply slew rate to joystick input to make robot input smoother
+        xSpeed = xLimiter.calculate(x) * DriveConstants.kTeleDriveMaxSpeedMetersPerSecond;
+        ySpeed = yLimiter.calculate(y) * DriveConstants.kTeleDriveMaxSpeedMetersPerSecond;
+        turningSpeed = turningLimiter.calculate(turning) * DriveConstants.kTeleDriveMaxAngularSpeedRadiansPerSecond;
+    }
+
+    // Read one joystick's axes into the array and return its button bits
+    private static int sample(int port, double[] axes){
+        int count = Math.min(DriverStation.getStickAxisCount(port), axes.length);
+        for(int i = 0; i < axes.length; i++){
+            axes[i] = i < count ? DriverStation.getStickAxis(port, i) : 0;
+        }
+        return DriverStation.getStickButtons(port);
+    }
+
+    // Clear slew state so the robot doesn't lurch when the command restarts
+    public void reset(){
+        xLimiter.reset(0);
+        yLimiter.reset(0);
+        turningLimiter.reset(0);
+        xSpeed = 0;
+        ySpeed = 0;
+        turningSpeed = 0;
+        turningInput = false;
+    }
+
+    // Shaped drive speeds in meters and radians per second
+    public double getXSpeed(){return xSpeed;}
+
+    public double getYSpeed(){return ySpeed;}
+
+    public double getTurningSpeed(){return turningSpeed;}
+
+    // True while the rotation axis is outside the deadband
+    public boolean hasTurningInput(){return turningInput;}
+
+    // Raw snapshot, buttons are numbered from 1 like getRawButton
+    public double getLeftAxis(int axis){return leftAxes[axis];}
+
+    public double getRightAxis(int axis){return rightAxes[axis];}
+
+    public boolean getLeftButton(int button){return (leftButtons & (1 << (button - 1))) != 0;}
+
+    public boolean getRightButton(int button){return (rightButtons & (1 << (button - 1))) != 0;}
+
+    // Field oriented unless the driver holds the robot oriented button
+    public boolean isFieldOriented(){return !getLeftButton(IOConstants.kFieldOrientedButton);}
+
+}
@@ -0,0 +1,103 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import frc.robot.util.Constants.AutoConstants;
+
+/* Rebuilds the rest of a trajectory for a robot that has been knocked off it. A short
+connecting spline starts at the robot's pose, moving the way it's moving now, and rejoins
+the old path a set time ahead of where the robot should have been, at the speed the old path
+has there. The old path's remainder is sampled and tacked on after it, so it works the same
+for trajectories that only build states when sampled. Heading turns evenly from the
+robot's heading to the old path's heading over the connector. Work runs on one shared
+background thread, and the old trajectory is only read, so followers can keep using it
+until the new one is ready. */
+public final class TrajectoryReplanner {
+
+    private TrajectoryReplanner(){}
+
+    private static final ExecutorService thread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread replanner = new Thread(runnable, "Trajectory Replanner");
+        replanner.setDaemon(true);
+        return replanner;
+    });
+
+    // Replan in the background, time 0 of the result is the moment the pose was read
+    public static CompletableFuture<Trajectory> replanAsync(Trajectory trajectory, double time, Pose2d pose,
+    double fieldVx, double fieldVy){
+        return CompletableFuture.supplyAsync(() -> replan(trajectory, time, pose, fieldVx, fieldVy), thread);
+    }
+
+    // Replan on the calling thread, velocity is field relative
+    public static Trajectory replan(Trajectory trajectory, double time, Pose2d pose, double fieldVx, double fieldVy){
+        double total = trajectory.getTotalTimeSeconds();
+        double rejoinTime = Math.min(time + AutoConstants.kReplanRejoinSeconds, total);
+        Trajectory.State rejoin = trajectory.sample(rejoinTime);
+        double maxSpeed = AutoConstants.kRetimeMaxSpeedMetersPerSecond;
+
+        // Leave the way the robot is moving, unless that's away from the rejoin point
+        double toX = rejoin.poseMeters.getX() - pose.getX();
+        double toY = rejoin.poseMeters.getY() - pose.getY();
+        double distance = Math.hypot(toX, toY);
+        if(distance < AutoConstants.kPlannerCellMeters){
+            return null;
+        }
+        double speed = Math.hypot(fieldVx, fieldVy);
+        double along = (fieldVx * toX + fieldVy * toY) / distance;
+        Rotation2d startDirection;
+        double startSpeed;
+        if(speed > AutoConstants.kReplanMinSpeedMetersPerSecond && along > 0){
+            startDirection = new Rotation2d(fieldVx, fieldVy);
+            startSpeed = speed;
+        }
+        else{
+            startDirection = new Rotation2d(toX, toY);
+            startSpeed = Math.max(along, 0);
+        }
+        double endSpeed = rejoinTime < total ? Math.abs(rejoin.velocityMetersPerSecond) : 0;
+
+        TrajectoryConfig config = new TrajectoryConfig(maxSpeed, AutoConstants.kRetimeMaxAccelerationMetersPerSecondSquared)
+            .setStartVelocity(Math.min(startSpeed, maxSpeed))
+            .setEndVelocity(Math.min(endSpeed, maxSpeed));
+        Trajectory connector = TrajectoryGenerator.generateTrajectory(
+            new Pose2d(pose.getTranslation(), startDirection), List.of(), rejoin.poseMeters, config);
+
+        // A spline that fails to generate comes back as a single state at the origin
+        if(connector.getStates().size() < 2 || connector.getTotalTimeSeconds() <= 0){
+            return null;
+        }
+
+        // Connector then the old remainder, with headings for both
+        List<Trajectory.State> states = new ArrayList<>(connector.getStates());
+        double connectorTime = connector.getTotalTimeSeconds();
+        double startHeading = pose.getRotation().getRadians();
+        double turn = Math.IEEEremainder(HolonomicHeading.of(trajectory, rejoin) - startHeading, 2 * Math.PI);
+        List<Double> headings = new ArrayList<>(states.size());
+        for(Trajectory.State state : states){
+            headings.add(startHeading + turn * state.timeSeconds / connectorTime);
+        }
+        int remaining = (int) Math.ceil((total - rejoinTime) / AutoConstants.kReplanSampleSeconds);
+        for(int i = 1; i <= remaining; i++){
+            Trajectory.State state = trajectory.sample(Math.min(rejoinTime + i * AutoConstants.kReplanSampleSeconds, total));
+            states.add(new Trajectory.State(state.timeSeconds - rejoinTime + connectorTime, state.velocityMetersPerSecond,
+            state.accelerationMetersPerSecondSq, state.poseMeters, state.curvatureRadPerMeter));
+            headings.add(HolonomicHeading.of(trajectory, state));
+        }
+
+        double[] headingArray = new double[headings.size()];
+        for(int i = 0; i < headingArray.length; i++){
+            headingArray[i] = headings.get(i);
+        }
+        return new RetimedTrajectory(states, headingArray);
+    }
+
+}
@@ -0,0 +1,176 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.util.ArrayList;
+import java.util.List;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.util.Constants.AutoConstants;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.ModuleConstants;
+
+/* Gives an existing path the fastest velocity profile our drivetrain can actually follow.
+The path geometry (positions, direction, curvature and holonomic heading) is kept and only
+the timing is redone. Every point along the path gets a speed cap from the tightest of:
+  - wheel speed, the fastest module including the part from turning the heading
+  - centripetal acceleration around the curve
+  - steer rate, how fast the modules have to turn to follow the change in travel direction
+  - the overall max speed passed in
+then a forward pass limits speeding up and a backward pass limits slowing down, with the
+acceleration that's left after the centripetal part (friction circle). The result is a
+normal trajectory so the existing followers can run it. Reversed stretches keep their
+negative velocities, and the robot comes to a stop wherever the direction flips. */
+public final class TrajectoryRetimer {
+
+    private TrajectoryRetimer(){}
+
+    // Module positions from robot center, module order like kDriveKinematics
+    private static final double[] kModuleX = {DriveConstants.kWheelBase / 2, DriveConstants.kWheelBase / 2, -DriveConstants.kWheelBase / 2, -DriveConstants.kWheelBase / 2};
+    private static final double[] kModuleY = {DriveConstants.kTrackWidth / 2, -DriveConstants.kTrackWidth / 2, DriveConstants.kTrackWidth / 2, -DriveConstants.kTrackWidth / 2};
+
+    // Retime with the limits in AutoConstants
+    public static RetimedTrajectory retime(Trajectory trajectory){
+        return retime(trajectory, AutoConstants.kRetimeMaxSpeedMetersPerSecond, AutoConstants.kRetimeMaxAccelerationMetersPerSecondSquared);
+    }
+
+    // Retime a trajectory, starting and ending at the speeds it started and ended at
+    public static RetimedTrajectory retime(Trajectory trajectory, double maxSpeed, double maxAcceleration){
+
+        // Sample the geometry finely and drop points that don't move
+        List<Trajectory.State> geometry = new ArrayList<>();
+        List<Double> headingList = new ArrayList<>();
+        double total = trajectory.getTotalTimeSeconds();
+        int samples = Math.max(2, (int) Math.ceil(total / AutoConstants.kRetimeSampleSeconds) + 1);
+        Pose2d lastPose = null;
+        for(int i = 0; i < samples; i++){
+            Trajectory.State state = trajectory.sample(Math.min(i * AutoConstants.kRetimeSampleSeconds, total));
+            if(lastPose != null && lastPose.getTranslation().getDistance(state.poseMeters.getTranslation()) < 1e-6 && i < samples - 1){
+                continue;
+            }
+            geometry.add(state);
+            headingList.add(HolonomicHeading.of(trajectory, state));
+            lastPose = state.poseMeters;
+        }
+        int n = geometry.size();
+
+        // Arc length and headings
+        double[] distance = new double[n];
+        double[] headings = new double[n];
+        for(int i = 0; i < n; i++){
+            headings[i] = headingList.get(i);
+            if(i > 0){
+                distance[i] = distance[i - 1] + geometry.get(i - 1).poseMeters.getTranslation().getDistance(geometry.get(i).poseMeters.getTranslation());
+            }
+        }
+
+        // Direction of travel, points the source passed at rest take it from their neighbours
+        double[] sign = new double[n];
+        for(int i = 0; i < n; i++){
+            sign[i] = Math.signum(geometry.get(i).velocityMetersPerSecond);
+        }
+        for(int i = 1; i < n; i++){
+            if(sign[i] == 0){
+                sign[i] = sign[i - 1];
+            }
+        }
+        for(int i = n - 2; i >= 0; i--){
+            if(sign[i] == 0){
+                sign[i] = sign[i + 1];
+            }
+        }
+
+        // Speed cap at every point, zero on both sides of a change in direction
+        double[] velocity = new double[n];
+        for(int i = 0; i < n; i++){
+            velocity[i] = speedLimit(geometry, headings, distance, sign, i, maxSpeed);
+        }
+        for(int i = 1; i < n; i++){
+            if(sign[i] != sign[i - 1]){
+                velocity[i - 1] = 0;
+                velocity[i] = 0;
+            }
+        }
+        velocity[0] = Math.min(velocity[0], Math.abs(geometry.get(0).velocityMetersPerSecond));
+        velocity[n - 1] = Math.min(velocity[n - 1], Math.abs(geometry.get(n - 1).velocityMetersPerSecond));
+
+        // Forward pass for speeding up, backward pass for slowing down
+        for(int i = 1; i < n; i++){
+            double step = distance[i] - distance[i - 1];
+            double available = availableAcceleration(velocity[i - 1], geometry.get(i - 1).curvatureRadPerMeter, maxAcceleration);
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i - 1] * velocity[i - 1] + 2 * available * step));
+        }
+        for(int i = n - 2; i >= 0; i--){
+            double step = distance[i + 1] - distance[i];
+            double available = availableAcceleration(velocity[i + 1], geometry.get(i + 1).curvatureRadPerMeter, maxAcceleration);
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i + 1] * velocity[i + 1] + 2 * available * step));
+        }
+
+        // Times and accelerations from the speeds, signed like the source
+        List<Trajectory.State> states = new ArrayList<>(n);
+        double time = 0;
+        for(int i = 0; i < n; i++){
+            double acceleration = 0;
+            if(i > 0){
+                double step = distance[i] - distance[i - 1];
+                double average = (velocity[i] + velocity[i - 1]) / 2;
+                time += average > 1e-9 ? step / average : Math.sqrt(2 * step / maxAcceleration);
+            }
+            if(i < n - 1){
+                double step = distance[i + 1] - distance[i];
+                acceleration = step > 0 ? (velocity[i + 1] * velocity[i + 1] - velocity[i] * velocity[i]) / (2 * step) : 0;
+            }
+            Trajectory.State source = geometry.get(i);
+            double direction = sign[i] < 0 ? -1 : 1;
+            states.add(new Trajectory.State(time, direction * velocity[i], direction * acceleration, source.poseMeters, source.curvatureRadPerMeter));
+        }
+        return new RetimedTrajectory(states, headings);
+    }
+
+    // Tightest speed cap at one point
+    private static double speedLimit(List<Trajectory.State> geometry, double[] headings, double[] distance, double[] sign, int i, double maxSpeed){
+        int n = geometry.size();
+        int before = Math.max(i - 1, 0);
+        int after = Math.min(i + 1, n - 1);
+        double span = distance[after] - distance[before];
+
+        // Heading change and travel direction change per meter, a reversed state faces backwards
+        // and has its curvature negated
+        boolean reversed = sign[i] < 0;
+        double headingRate = span > 0 ? Math.IEEEremainder(headings[after] - headings[before], 2 * Math.PI) / span : 0;
+        double curvature = reversed ? -geometry.get(i).curvatureRadPerMeter : geometry.get(i).curvatureRadPerMeter;
+        double limit = maxSpeed;
+
+        // Wheel speed, module velocity per unit of path speed
+        double direction = geometry.get(i).poseMeters.getRotation().getRadians() + (reversed ? Math.PI : 0);
+        double relative = direction - headings[i];
+        double cos = Math.cos(relative);
+        double sin = Math.sin(relative);
+        for(int m = 0; m < 4; m++){
+            double wheelX = cos - headingRate * kModuleY[m];
+            double wheelY = sin + headingRate * kModuleX[m];
+            double perSpeed = Math.hypot(wheelX, wheelY);
+            if(perSpeed > 1e-9){
+                limit = Math.min(limit, DriveConstants.kPhysicalMaxSpeedMetersPerSecond / perSpeed);
+            }
+        }
+
+        // Centripetal acceleration
+        if(Math.abs(curvature) > 1e-9){
+            limit = Math.min(limit, Math.sqrt(AutoConstants.kRetimeMaxCentripetalAccelerationMetersPerSecondSquared / Math.abs(curvature)));
+        }
+
+        // Steer rate, travel direction in the robot frame turns at (curvature - heading rate) per meter
+        double steerPerMeter = Math.abs(curvature - headingRate);
+        if(steerPerMeter > 1e-9){
+            limit = Math.min(limit, ModuleConstants.kMaxSteerRateRadPerSec * AutoConstants.kRetimeSteerRateFraction / steerPerMeter);
+        }
+        return limit;
+    }
+
+    // Tangential acceleration left once the centripetal part is taken out
+    private static double availableAcceleration(double velocity, double curvature, double maxAcceleration){
+        double centripetal = velocity * velocity * Math.abs(curvature);
+        return Math.sqrt(Math.max(0, maxAcceleration * maxAcceleration - centripetal * centripetal));
+    }
+
+}
@@ -0,0 +1,82 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Properties;
+
+/* Controller gains written by the gain tuner. The file lives in the deploy directory so it
+ships with the robot code, anything missing or unreadable falls back to the hand picked
+default given in Constants. The deploy directory is found without asking the HAL, since
+Constants loads this in desktop tools and unit tests where the HAL isn't there. */
+public final class TunedGains {
+
+    public static final String kFileName = "tuning/gains.properties";
+
+    // Deploy directory on the roboRIO, and in the project everywhere else
+    private static final File kRobotDeployDirectory = new File("/home/lvuser/deploy");
+    private static final String kProjectDeployDirectory = "src/main/deploy";
+
+    // Loaded once the first time Constants asks for a gain
+    private static Properties gains;
+
+    private TunedGains(){}
+
+    // Tuned value for a constant, or the default if there isn't one
+    public static synchronized double get(String name, double defaultValue){
+        if(gains == null){
+            gains = load();
+        }
+        String value = gains.getProperty(name);
+        if(value == null){
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    // Write tuned gains out for the next build to pick up
+    public static void save(Map<String, Double> values, String comment) throws IOException {
+        File file = getFile();
+        file.getParentFile().mkdirs();
+
+        Properties properties = new Properties();
+        for(Map.Entry<String, Double> entry : values.entrySet()){
+            properties.setProperty(entry.getKey(), Double.toString(entry.getValue()));
+        }
+        try (Writer writer = new FileWriter(file)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    public static File getFile(){
+        return new File(getDeployDirectory(), kFileName);
+    }
+
+    // Same directory Filesystem.getDeployDirectory() gives, picked by what exists instead of by the HAL
+    private static File getDeployDirectory(){
+        if(kRobotDeployDirectory.isDirectory()){
+            return kRobotDeployDirectory;
+        }
+        return new File(System.getProperty("user.dir"), kProjectDeployDirectory);
+    }
+
+    private static Properties load(){
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(getFile())) {
+            properties.load(reader);
+        } catch (IOException e) {
+            // No tuned gains yet, use the defaults
+        }
+        return properties;
+    }
+
+}
@@ -0,0 +1,31 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+public class ChassisVelocityEstimatorTest {
+
+    @Test
+    public void spinningWhileDrivingStraightTracksTheRobotFrame(){
+        ChassisVelocityEstimator estimator = new ChassisVelocityEstimator();
+        estimator.reset(1, 0);
+
+        // 1 m/s along field +x while turning counterclockwise, so in the robot frame the
+        // velocity turns clockwise and the IMU feels nothing
+        double omega = 2;
+        double dt = 0.01;
+        double heading = 0;
+        for(int i = 0; i < 100; i++){
+            heading += omega * dt;
+            estimator.update(Math.cos(heading), -Math.sin(heading), 0, 0, omega, dt);
+            assertFalse(estimator.isSlipping());
+        }
+
+        assertEquals(Math.cos(heading), estimator.getVx(), 0.002);
+        assertEquals(-Math.sin(heading), estimator.getVy(), 0.002);
+        assertEquals(omega, estimator.getOmega(), 1e-9);
+    }
+
+}
@@ -0,0 +1,83 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.util.List;
+import org.junit.Test;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+
+public class CompactTrajectoryTest {
+
+    // How far a compact sample may be from the original trajectory's own interpolation
+    private static final double kPositionTolerance = 0.01;
+
+    // An S curve with a few meters of straight and turning
+    private static Trajectory sCurve(){
+        return TrajectoryGenerator.generateTrajectory(
+            new Pose2d(0, 0, new Rotation2d()),
+            List.of(new Translation2d(1, 0.5), new Translation2d(2, -0.5)),
+            new Pose2d(3, 0, new Rotation2d()),
+            new TrajectoryConfig(2, 2));
+    }
+
+    @Test
+    public void samplesMatchTheOriginal(){
+        Trajectory original = sCurve();
+        CompactTrajectory compact = CompactTrajectory.of(original);
+
+        assertTrue(compact.getKnotCount() < original.getStates().size());
+        assertEquals(original.getTotalTimeSeconds(), compact.getTotalTimeSeconds(), 1e-9);
+        for(double t = 0; t <= original.getTotalTimeSeconds(); t += 0.01){
+            Trajectory.State expected = original.sample(t);
+            Trajectory.State actual = compact.sample(t);
+            assertEquals("x at " + t, expected.poseMeters.getX(), actual.poseMeters.getX(), kPositionTolerance);
+            assertEquals("y at " + t, expected.poseMeters.getY(), actual.poseMeters.getY(), kPositionTolerance);
+            assertEquals("speed at " + t, expected.velocityMetersPerSecond, actual.velocityMetersPerSecond, 0.05);
+        }
+    }
+
+    @Test
+    public void statesCoverTheWholePath(){
+        Trajectory original = sCurve();
+        CompactTrajectory compact = CompactTrajectory.of(original);
+        List<Trajectory.State> states = compact.getStates();
+
+        assertTrue(states.size() > 2);
+        assertEquals(0, states.get(0).timeSeconds, 1e-9);
+        assertEquals(compact.getTotalTimeSeconds(), states.get(states.size() - 1).timeSeconds, 1e-9);
+        Pose2d end = original.sample(original.getTotalTimeSeconds()).poseMeters;
+        Pose2d relative = compact.relativeTo(end).sample(compact.getTotalTimeSeconds()).poseMeters;
+        assertEquals(0, relative.getTranslation().getNorm(), kPositionTolerance);
+    }
+
+    @Test
+    public void replanKeepsTheRestOfTheCompactPath(){
+        Trajectory original = sCurve();
+        CompactTrajectory compact = CompactTrajectory.of(original);
+
+        // Knocked half a meter sideways a second in
+        double time = 1;
+        Pose2d reference = compact.sample(time).poseMeters;
+        Pose2d bumped = new Pose2d(reference.getX(), reference.getY() + 0.5, new Rotation2d());
+        Trajectory replanned = TrajectoryReplanner.replan(compact, time, bumped, 0, 0);
+
+        assertNotNull(replanned);
+        Pose2d start = replanned.sample(0).poseMeters;
+        assertEquals(0, start.getTranslation().getDistance(bumped.getTranslation()), kPositionTolerance);
+        Pose2d expectedEnd = original.sample(original.getTotalTimeSeconds()).poseMeters;
+        Pose2d actualEnd = replanned.sample(replanned.getTotalTimeSeconds()).poseMeters;
+        assertEquals(0, actualEnd.getTranslation().getDistance(expectedEnd.getTranslation()), kPositionTolerance);
+
+        // Everything after the rejoin point made it across
+        double remainder = original.getTotalTimeSeconds() - time - Constants.AutoConstants.kReplanRejoinSeconds;
+        assertTrue(replanned.getTotalTimeSeconds() > remainder);
+    }
+
+}
@@ -0,0 +1,59 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class SwerveOdometryTest {
+
+    private static final double kWheelBase = 0.6;
+    private static final double kTrackWidth = 0.5;
+    private static final double kDelta = 1e-6;
+
+    // Module positions in kDriveKinematics order
+    private static final double[] kModuleX = {kWheelBase / 2, kWheelBase / 2, -kWheelBase / 2, -kWheelBase / 2};
+    private static final double[] kModuleY = {kTrackWidth / 2, -kTrackWidth / 2, kTrackWidth / 2, -kTrackWidth / 2};
+
+    @Test
+    public void pureSpinStaysInPlace(){
+        SwerveOdometry odometry = new SwerveOdometry(kWheelBase, kTrackWidth);
+        double[] positions = new double[4];
+        double[] angles = new double[4];
+        odometry.resetPosition(1, 2, 0, 0, positions);
+
+        // Counterclockwise spin, every wheel points along its circle and rolls the arc
+        double step = 0.02;
+        double gyro = 0;
+        for(int i = 0; i < 100; i++){
+            gyro += step;
+            for(int m = 0; m < 4; m++){
+                angles[m] = Math.atan2(kModuleX[m], -kModuleY[m]);
+                positions[m] += Math.hypot(kModuleX[m], kModuleY[m]) * step;
+            }
+            odometry.update(gyro, positions, angles);
+        }
+
+        assertEquals(1, odometry.getX(), kDelta);
+        assertEquals(2, odometry.getY(), kDelta);
+        assertEquals(Math.IEEEremainder(gyro, 2 * Math.PI), odometry.getTheta(), kDelta);
+        assertEquals(0, odometry.getSlipCount());
+    }
+
+    @Test
+    public void forwardFollowsHeading(){
+        SwerveOdometry odometry = new SwerveOdometry(kWheelBase, kTrackWidth);
+        double[] positions = new double[4];
+        double[] angles = new double[4];
+        odometry.resetPosition(0, 0, Math.PI / 2, 0, positions);
+
+        // Facing +y, forward in the robot frame is along +y on the field
+        for(int m = 0; m < 4; m++){
+            positions[m] = 0.1;
+        }
+        odometry.update(0, positions, angles);
+
+        assertEquals(0, odometry.getX(), kDelta);
+        assertEquals(0.1, odometry.getY(), kDelta);
+    }
+
+}
@@ -0,0 +1,89 @@
+// FRC2106 Junkyard Dogs - Swerve Drive Base Code
+
+package frc.robot.util;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import frc.robot.util.Constants.DriveConstants;
+import frc.robot.util.Constants.ModuleConstants;
+
+public class SwerveSetpointGeneratorTest {
+
+    private final FixedSwerveKinematics kinematics = DriveConstants.kFixedKinematics;
+    private final SwerveSetpointGenerator generator = new SwerveSetpointGenerator(kinematics);
+    private final double[] speeds = new double[4];
+    private final double[] angles = new double[4];
+    private final double[] chassis = new double[3];
+
+    // Run a few cycles toward a chassis speed, chassis is left holding where the robot got to
+    private void drive(double vx, double vy, double omega, double dt, int cycles){
+        for(int i = 0; i < cycles; i++){
+            generator.generate(vx, vy, omega, dt, speeds, angles);
+        }
+        kinematics.toChassisSpeeds(speeds, angles, chassis);
+    }
+
+    // Cycles to change speed by an amount at the acceleration limit, plus some for steering
+    private static int cyclesFor(double change, double dt){
+        return (int) Math.ceil(change / (ModuleConstants.kMaxDriveAccelerationMetersPerSecondSquared * dt)) + 5;
+    }
+
+    @Test
+    public void reversesAtTheAccelerationLimit(){
+        double dt = 0.02;
+        double maxChange = ModuleConstants.kMaxDriveAccelerationMetersPerSecondSquared * dt;
+        generator.reset(new double[4]);
+        drive(2, 0, 0, dt, cyclesFor(2, dt));
+        assertEquals(2, chassis[0], 1e-6);
+
+        double last = 2;
+        for(int i = 0; i < cyclesFor(4, dt); i++){
+            drive(-2, 0, 0, dt, 1);
+            assertTrue("slows every cycle, " + chassis[0] + " after " + last, chassis[0] < last || Math.abs(chassis[0] + 2) < 1e-6);
+            assertTrue("within the acceleration limit", last - chassis[0] <= maxChange + 1e-6);
+            last = chassis[0];
+        }
+        assertEquals(-2, last, 1e-6);
+    }
+
+    @Test
+    public void reversesWhileModulesAreStillSteering(){
+        double dt = 0.005;
+        generator.reset(new double[4]);
+
+        // A few cycles into a sharp change of direction, the modules haven't lined up yet
+        drive(-1, -2, -3, dt, 5);
+        drive(2, -3, 4, dt, 3);
+
+        // Every cycle has to make progress until the reversed speed is reached
+        double[] last = chassis.clone();
+        for(int i = 0; i < 400; i++){
+            drive(-2, 3, -4, dt, 1);
+            if(Math.abs(chassis[0] + 2) + Math.abs(chassis[1] - 3) + Math.abs(chassis[2] + 4) < 1e-6){
+                return;
+            }
+            double change = Math.abs(chassis[0] - last[0]) + Math.abs(chassis[1] - last[1]) + Math.abs(chassis[2] - last[2]);
+            assertTrue("stuck at the old speed on cycle " + i, change > 1e-9);
+            System.arraycopy(chassis, 0, last, 0, 3);
+        }
+        throw new AssertionError("never reached the reversed speed");
+    }
+
+    @Test
+    public void stopsWhileModulesAreStillSteering(){
+        double dt = 0.02;
+        generator.reset(new double[4]);
+        drive(2, 0, 0, dt, cyclesFor(2, dt));
+
+        // One cycle into a turn to the side, the modules haven't lined up yet
+        drive(0, 2, 0, dt, 1);
+        double steering = Math.abs(Math.IEEEremainder(angles[0] - Math.PI / 2, Math.PI));
+        assertTrue("modules are still steering", steering > 1e-3);
+
+        drive(0, 0, 0, dt, cyclesFor(2, dt));
+        for(int i = 0; i < 4; i++){
+            assertEquals("module " + i + " stopped", 0, speeds[i], 1e-6);
+        }
+    }
+
+}